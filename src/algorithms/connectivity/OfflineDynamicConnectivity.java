@@ -0,0 +1,312 @@
+package algorithms.connectivity;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Random;
+
+import datastructures.disjointset.RollbackUnionFind;
+import datastructures.disjointset.WeightedQuickUnionFind;
+
+/**
+ * Answer connectivity queries over a log of edge additions and removals,
+ * all at once after the log is known, in O((N + Q) log Q log N). Each edge
+ * is alive for a range of queries, which is split over the O(log Q) nodes of
+ * a segment tree over the queries that cover it. A depth first walk of the
+ * segment tree joins the edges of a node in a RollbackUnionFind on the way
+ * down and rolls them back on the way up, so at each leaf the forest holds
+ * exactly the edges alive at that query
+ *
+ * @author An Nguyen
+ *
+ */
+public class OfflineDynamicConnectivity {
+	private final int N;							// the size of the graph
+	private final Map<Long, LinkedList<Integer>> open;	// the live edges between each pair
+	private int M;									// the number of edges added
+	private int[] from, to;							// the ends of each edge
+	private int[] start, end;						// the queries each edge is alive for,
+													// from start inclusive to end exclusive
+	private int Q;									// the number of queries
+	private int[] v, w;								// the pair of each query
+	private boolean[] connected;					// the answer to each query, null if stale
+	private int[] count;							// the number of components at each query
+
+	/**
+	 * Create an empty log over a graph with no edges
+	 * @param N the size of the graph
+	 */
+	public OfflineDynamicConnectivity(int N) {
+		this.N = N;
+		open = new HashMap<Long, LinkedList<Integer>>();
+		from = new int[16];
+		to = new int[16];
+		start = new int[16];
+		end = new int[16];
+		v = new int[16];
+		w = new int[16];
+	}
+
+	/**
+	 * Add an edge to the graph. Parallel edges are allowed
+	 * @param p one end of the edge
+	 * @param q the other end of the edge
+	 * @throws IllegalArgumentException if p or q is not a valid vertex
+	 */
+	public void addEdge(int p, int q) {
+		validate(p, q);
+		if (M == from.length) {
+			from = Arrays.copyOf(from, 2 * M);
+			to = Arrays.copyOf(to, 2 * M);
+			start = Arrays.copyOf(start, 2 * M);
+			end = Arrays.copyOf(end, 2 * M);
+		}
+		from[M] = p;
+		to[M] = q;
+		start[M] = Q;
+		end[M] = -1;
+		Long key = key(p, q);
+		LinkedList<Integer> edges = open.get(key);
+		if (edges == null) {
+			edges = new LinkedList<Integer>();
+			open.put(key, edges);
+		}
+		edges.push(M++);
+		connected = null;
+	}
+
+	/**
+	 * Remove an edge from the graph, the one added last
+	 * if there are parallel edges
+	 * @param p one end of the edge
+	 * @param q the other end of the edge
+	 * @throws IllegalArgumentException if p or q is not a valid vertex,
+	 * 		or there is no edge between them
+	 */
+	public void removeEdge(int p, int q) {
+		validate(p, q);
+		Long key = key(p, q);
+		LinkedList<Integer> edges = open.get(key);
+		if (edges == null)
+			throw new IllegalArgumentException("There is no edge between " + p + " and " + q);
+		end[edges.pop()] = Q;
+		if (edges.isEmpty())
+			open.remove(key);
+		connected = null;
+	}
+
+	/**
+	 * Ask whether two vertices are connected at this point of the log
+	 * @param p the first vertex
+	 * @param q the second vertex
+	 * @return the id of the query
+	 * @throws IllegalArgumentException if p or q is not a valid vertex
+	 */
+	public int query(int p, int q) {
+		validate(p, q);
+		if (Q == v.length) {
+			v = Arrays.copyOf(v, 2 * Q);
+			w = Arrays.copyOf(w, 2 * Q);
+		}
+		v[Q] = p;
+		w[Q] = q;
+		connected = null;
+		return Q++;
+	}
+
+	/**
+	 * Get the answer to a query, answering the whole
+	 * log first if it has changed
+	 * @param k the id of the query
+	 * @return whether its vertices were connected at that point
+	 * @throws IllegalArgumentException if k is not a valid query
+	 */
+	public boolean connected(int k) {
+		if (k < 0 || k >= Q)
+			throw new IllegalArgumentException("The value " + k + " is not in the range [0, " + Q + "]");
+		if (connected == null) solve();
+		return connected[k];
+	}
+
+	/**
+	 * Get the number of components of the graph at a query,
+	 * answering the whole log first if it has changed
+	 * @param k the id of the query
+	 * @return the number of components at that point
+	 * @throws IllegalArgumentException if k is not a valid query
+	 */
+	public int count(int k) {
+		if (k < 0 || k >= Q)
+			throw new IllegalArgumentException("The value " + k + " is not in the range [0, " + Q + "]");
+		if (connected == null) solve();
+		return count[k];
+	}
+
+	/**
+	 * Get the number of queries in the log
+	 * @return the number of queries
+	 */
+	public int queries() {
+		return Q;
+	}
+
+	/**
+	 * Answer every query of the log
+	 */
+	private void solve() {
+		connected = new boolean[Q];
+		count = new int[Q];
+		if (Q == 0) return;
+		int size = Integer.highestOneBit(Math.max(Q - 1, 1)) << 1;
+		// Count the edges of each node, then place them in one array
+		int[] first = new int[2 * size + 1];
+		for (int e = 0; e < M; e++)
+			cover(e, size, first, null);
+		for (int x = 1; x <= 2 * size; x++)
+			first[x] += first[x - 1];
+		int[] edges = new int[first[2 * size]];
+		int[] next = Arrays.copyOf(first, 2 * size);
+		for (int e = 0; e < M; e++)
+			cover(e, size, next, edges);
+		walk(1, 0, size, new RollbackUnionFind(N), first, edges);
+	}
+
+	/**
+	 * Find the nodes of the segment tree that cover the queries an edge
+	 * is alive for, like a bottom up range query
+	 * @param e the edge
+	 * @param size the number of leaves of the segment tree
+	 * @param next the next free slot of each node, or the count of
+	 * 		edges of the node after it while counting
+	 * @param edges the edges of all nodes, or null while counting
+	 */
+	private void cover(int e, int size, int[] next, int[] edges) {
+		int lo = start[e] + size, hi = (end[e] == -1 ? Q : end[e]) + size;
+		for (; lo < hi; lo >>= 1, hi >>= 1) {
+			if ((lo & 1) == 1) place(e, lo++, next, edges);
+			if ((hi & 1) == 1) place(e, --hi, next, edges);
+		}
+	}
+
+	/**
+	 * Put an edge in a node of the segment tree
+	 * @param e the edge
+	 * @param x the node
+	 * @param next the next free slot of each node, or the count of
+	 * 		edges of the node after it while counting
+	 * @param edges the edges of all nodes, or null while counting
+	 */
+	private static void place(int e, int x, int[] next, int[] edges) {
+		if (edges == null) next[x + 1]++;
+		else edges[next[x]++] = e;
+	}
+
+	/**
+	 * Join the edges of a node, answer the queries below it and
+	 * roll the edges back
+	 * @param x the node of the segment tree
+	 * @param lo the first query below x, inclusive
+	 * @param hi the last query below x, exclusive
+	 * @param forest the forest of the edges on the path from the root to x
+	 * @param first where the edges of each node start
+	 * @param edges the edges of all nodes
+	 */
+	private void walk(int x, int lo, int hi, RollbackUnionFind forest, int[] first, int[] edges) {
+		if (lo >= Q) return;
+		int checkpoint = forest.checkpoint();
+		for (int i = first[x]; i < first[x + 1]; i++)
+			forest.union(from[edges[i]], to[edges[i]]);
+		if (hi - lo == 1) {
+			connected[lo] = forest.connected(v[lo], w[lo]);
+			count[lo] = forest.count();
+		} else {
+			int mid = (lo + hi) >>> 1;
+			walk(2 * x, lo, mid, forest, first, edges);
+			walk(2 * x + 1, mid, hi, forest, first, edges);
+		}
+		forest.rollback(checkpoint);
+	}
+
+	/**
+	 * Pack an unordered pair of vertices into one key
+	 * @param p the first vertex
+	 * @param q the second vertex
+	 * @return the key of the pair
+	 */
+	private static Long key(int p, int q) {
+		return (long) Math.min(p, q) << 32 | Math.max(p, q);
+	}
+
+	/**
+	 * Check that two vertices are in the graph
+	 * @param p the first vertex
+	 * @param q the second vertex
+	 * @throws IllegalArgumentException if p or q is not a valid vertex
+	 */
+	private void validate(int p, int q) {
+		if (p < 0 || p >= N || q < 0 || q >= N)
+			throw new IllegalArgumentException("The value " + p + " or " + q +
+					" is not in the range [0, " + N + "]");
+	}
+
+	/**
+	 * Answer a random log and compare the time with rebuilding a
+	 * WeightedQuickUnionFind from the live edges at every query
+	 * @param args the size of the graph and the number of operations
+	 */
+	public static void main(String[] args) {
+		int N = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		int ops = args.length > 1 ? Integer.parseInt(args[1]) : 300000;
+		Random random = new Random(N);
+		OfflineDynamicConnectivity log = new OfflineDynamicConnectivity(N);
+		// The live edges, for the rebuilds
+		int[] live = new int[2 * ops];
+		int M = 0;
+		int[][] snapshot = new int[ops][];
+		int Q = 0;
+		for (int i = 0; i < ops; i++) {
+			// Half the operations add an edge, so the graph fills up
+			int kind = random.nextInt(6);
+			if (kind < 3 || M == 0) {
+				int p = random.nextInt(N), q = random.nextInt(N);
+				log.addEdge(p, q);
+				live[2 * M] = p;
+				live[2 * M + 1] = q;
+				M++;
+			} else if (kind == 3) {
+				int e = random.nextInt(M);
+				log.removeEdge(live[2 * e], live[2 * e + 1]);
+				// Parallel edges are alike, so any copy of the pair may go
+				live[2 * e] = live[2 * M - 2];
+				live[2 * e + 1] = live[2 * M - 1];
+				M--;
+			} else {
+				log.query(random.nextInt(N), random.nextInt(N));
+				// Keep a sample of snapshots for the rebuilds
+				if (Q % 1000 == 0) snapshot[Q] = Arrays.copyOf(live, 2 * M);
+				Q++;
+			}
+		}
+		long begin = System.nanoTime();
+		int connected = 0;
+		for (int k = 0; k < Q; k++)
+			if (log.connected(k)) connected++;
+		double time = (System.nanoTime() - begin) / 1e6;
+		System.out.printf("%-20s %10.2f ms for %d queries, %d connected%n", "offline", time, Q, connected);
+
+		begin = System.nanoTime();
+		int sampled = 0, bad = 0;
+		for (int k = 0; k < Q; k += 1000) {
+			WeightedQuickUnionFind forest = new WeightedQuickUnionFind(N);
+			for (int e = 0; e < snapshot[k].length; e += 2)
+				forest.union(snapshot[k][e], snapshot[k][e + 1]);
+			if (forest.connected(log.v[k], log.w[k]) != log.connected(k)) bad++;
+			sampled++;
+		}
+		time = (System.nanoTime() - begin) / 1e6;
+		System.out.printf("%-20s %10.2f ms for %d queries, about %.2f ms for all%n", "rebuild", time, sampled,
+				time / sampled * Q);
+		System.out.printf("%-20s %d%n", "mismatches", bad);
+	}
+}
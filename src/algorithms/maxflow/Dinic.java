@@ -0,0 +1,130 @@
+package algorithms.maxflow;
+
+import java.util.LinkedList;
+import java.util.Random;
+
+import datastructures.edges.FlowEdge;
+import datastructures.graphs.FlowGraph;
+
+/**
+ * Dinic's Algorithm over a primitive residual graph. Like DinicNaive it
+ * alternates a BFS that levels the residual graph with blocking flows along
+ * arcs that climb one level, but each vertex keeps a current arc pointer into
+ * its arc list that only ever moves forward within a phase, so a blocking flow
+ * costs |V||E| at most rather than rescanning |V| arcs at every step. The
+ * DFS keeps its path in an array instead of the call stack, so deep level
+ * graphs can't overflow it. The level graph is kept by LevelGraph, which
+ * LongDinic shares
+ *
+ * @author An Nguyen
+ *
+ */
+public class Dinic {
+	private final FlowGraph G;			// the residual graph
+	private final LevelGraph levels;	// the level graph of the residual graph
+	private double value;				// the maxflow of the graph
+
+	/**
+	 * Compute the maxflow of a flow network given as an adjacency list.
+	 * The edges are copied into a residual graph, so the flow found is
+	 * not written back into them
+	 * @param N the size of the graph
+	 * @param adj the adjacency list that represents the flow graph
+	 * @param s the source vertex
+	 * @param t the sink vertex
+	 */
+	public Dinic(int N, LinkedList<FlowEdge>[] adj, int s, int t) {
+		this(FlowGraph.of(N, adj), s, t);
+	}
+
+	/**
+	 * Compute the maxflow of a flow network, adding it to the flow
+	 * already in the residual graph
+	 * @param G the residual graph, which holds the max flow afterwards
+	 * @param s the source vertex
+	 * @param t the sink vertex
+	 * @throws IllegalArgumentException if s or t is not a valid vertex, or s is t
+	 */
+	public Dinic(FlowGraph G, int s, int t) {
+		this.G = G;
+		levels = new LevelGraph(G, s, t);
+		while (levels.BFS()) {
+			double flow;
+			while ((flow = sendFlow()) > 0)
+				value += flow;
+		}
+	}
+
+	/**
+	 * Find a path in the level graph from the source to the sink
+	 * and push as much flow along it as it can take
+	 * @return the flow pushed, or 0 if the blocking flow is complete
+	 */
+	private double sendFlow() {
+		int depth = levels.findPath();
+		double flow = Double.POSITIVE_INFINITY;
+		for (int i = 0; i < depth; i++)
+			flow = Math.min(flow, G.residual(levels.arc(i)));
+		for (int i = 0; i < depth; i++)
+			G.push(levels.arc(i), flow);
+		return depth == 0 ? 0 : flow;
+	}
+
+	/**
+	 * Compute the value of the max flow
+	 * @return the max flow
+	 */
+	public double value() {
+		return value;
+	}
+
+	/**
+	 * Compute whether a vertex v belongs to the source side
+	 * of the minimum cut
+	 * @param v the vertex to inspect
+	 * @return whether v belongs to the minimum cut
+	 */
+	public boolean inCut(int v) {
+		return levels.reached(v);
+	}
+
+	/**
+	 * Compare the running time of Dinic with DinicNaive and
+	 * FordFulkerson on the same random flow network
+	 * @param args the size of the graph and the number of edges
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public static void main(String[] args) {
+		int N = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+		int M = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+		Random random = new Random(N);
+		int[] from = new int[M], to = new int[M];
+		double[] cap = new double[M];
+		for (int i = 0; i < M; i++) {
+			from[i] = random.nextInt(N);
+			to[i] = random.nextInt(N);
+			cap[i] = 1 + random.nextInt(100);
+		}
+		String[] names = { "Dinic", "DinicNaive", "FordFulkerson" };
+		for (String name : names) {
+			LinkedList<FlowEdge>[] adj = (LinkedList<FlowEdge>[]) new LinkedList[N];
+			for (int v = 0; v < N; v++)
+				adj[v] = new LinkedList<FlowEdge>();
+			for (int i = 0; i < M; i++) {
+				if (from[i] == to[i]) continue;
+				FlowEdge e = new FlowEdge(from[i], to[i], cap[i]);
+				adj[from[i]].add(e);
+				adj[to[i]].add(e);
+			}
+			long start = System.nanoTime();
+			double value;
+			if (name.equals("Dinic"))
+				value = new Dinic(N, adj, 0, N - 1).value();
+			else if (name.equals("DinicNaive"))
+				value = new DinicNaive(N, adj, 0, N - 1).value();
+			else
+				value = new FordFulkerson(N, adj, 0, N - 1).value();
+			System.out.printf("%-14s %12.1f %10.2f ms%n", name, value, (System.nanoTime() - start) / 1e6);
+		}
+	}
+}
@@ -0,0 +1,293 @@
+package algorithms.maxflow;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+import datastructures.graphs.FlowGraph;
+
+/**
+ * A Gomory-Hu tree of an undirected flow network built by Gusfield's
+ * method, which needs only N - 1 max flows and never contracts the graph.
+ * Vertex s is cut from its current parent t, and every other vertex that
+ * shares that parent and falls on the side of s is moved under s. If the
+ * parent of t falls on the side of s too, s takes the place of t under it and
+ * t hangs from s, swapping the weights of their edges, so removing any tree
+ * edge splits the vertices along a minimum cut of the network and not only
+ * one of the same value. The minimum cut between any two vertices is then the
+ * lightest edge on their tree path, found in log N by binary lifting.
+ *
+ * The cuts are computed ahead of time on a pool, each on its own copy of the
+ * residual graph, using the parent a vertex has when it is scheduled. A parent
+ * only changes when an earlier cut moves the vertex, so a cut is kept if its
+ * vertex still has the same parent once its turn comes, and redone otherwise
+ *
+ * @author An Nguyen
+ *
+ */
+public class GomoryHuTree {
+	private final int N;				// the size of the graph
+	private final int[] parent;			// the parent of v in the tree, -1 for the root 0
+	private final double[] weight;		// the min cut between v and its parent
+	private final int[] depth;			// the number of tree edges between v and the root
+	private final int[] up;				// the 2^k-th ancestor of v is stored at k * N + v
+	private final double[] lightest;	// the lightest edge on the way up to it
+	private final int log;				// the number of levels of ancestors
+	private final BlockingQueue<FlowGraph> copies;	// the residual graphs not in use
+	private int flows;					// the number of max flows computed
+
+	/**
+	 * The minimum cut between a vertex and the parent it had when the
+	 * cut was scheduled
+	 * @author An Nguyen
+	 *
+	 */
+	private class Cut extends RecursiveTask<Cut> {
+		private static final long serialVersionUID = 1L;
+		private final int s, t;		// the vertex and its parent at the time
+		private double value;		// the value of the minimum cut
+		private boolean[] side;		// whether v is on the side of s
+
+		/**
+		 * Create the minimum cut between two vertices
+		 * @param s the vertex to cut
+		 * @param t the parent of s
+		 */
+		public Cut(int s, int t) {
+			this.s = s;
+			this.t = t;
+		}
+
+		@Override
+		protected Cut compute() {
+			FlowGraph G;
+			try {
+				G = copies.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while waiting for a residual graph", e);
+			}
+			try {
+				G.reset();
+				Dinic flow = new Dinic(G, s, t);
+				value = flow.value();
+				side = new boolean[N];
+				for (int v = 0; v < N; v++)
+					side[v] = flow.inCut(v);
+			} finally {
+				copies.add(G);
+			}
+			return this;
+		}
+	}
+
+	/**
+	 * Build the Gomory-Hu tree of a network on the common fork join pool
+	 * @param G the flow network, where every edge is taken as undirected
+	 * 		with its capacity in both directions
+	 */
+	public GomoryHuTree(FlowGraph G) {
+		this(G, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Build the Gomory-Hu tree of a network
+	 * @param G the flow network, where every edge is taken as undirected
+	 * 		with its capacity in both directions. It is left untouched
+	 * @param pool the pool that computes the cuts
+	 */
+	public GomoryHuTree(FlowGraph G, ForkJoinPool pool) {
+		N = G.size();
+		parent = new int[N];
+		weight = new double[N];
+		// At most window + 1 cuts are pending while one more may be
+		// redone, so every cut finds a residual graph free
+		int window = 2 * pool.getParallelism();
+		copies = new ArrayBlockingQueue<FlowGraph>(window + 2);
+		for (int k = 0; k < window + 2 && N > 1; k++)
+			copies.add(undirected(G));
+
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		ForkJoinTask<Cut>[] pending = (ForkJoinTask<Cut>[]) new ForkJoinTask[N];
+		if (N > 0)
+			parent[0] = -1;
+		int scheduled = 1;
+		for (int s = 1; s < N; s++) {
+			for (; scheduled < N && scheduled <= s + window; scheduled++)
+				pending[scheduled] = pool.submit(new Cut(scheduled, parent[scheduled]));
+			Cut cut = pending[s].join();
+			pending[s] = null;
+			flows++;
+			if (cut.t != parent[s]) {
+				cut = new Cut(s, parent[s]).compute();
+				flows++;
+			}
+			int t = cut.t;
+			weight[s] = cut.value;
+			for (int v = 0; v < N; v++)
+				if (v != s && parent[v] == t && cut.side[v])
+					parent[v] = s;
+			if (parent[t] != -1 && cut.side[parent[t]]) {
+				parent[s] = parent[t];
+				parent[t] = s;
+				weight[s] = weight[t];
+				weight[t] = cut.value;
+			}
+		}
+		copies.clear();
+
+		// The swaps can put a child before its parent, so depths
+		// and ancestors are filled in BFS order from the root
+		int[] order = new int[N];
+		int[] first = new int[N + 1];
+		for (int v = 1; v < N; v++)
+			first[parent[v] + 1]++;
+		for (int v = 0; v < N; v++)
+			first[v + 1] += first[v];
+		int[] next = Arrays.copyOf(first, N);
+		int[] children = new int[Math.max(N - 1, 0)];
+		for (int v = 1; v < N; v++)
+			children[next[parent[v]]++] = v;
+		for (int head = 0, tail = N > 0 ? 1 : 0; head < tail; head++)
+			for (int i = first[order[head]]; i < first[order[head] + 1]; i++)
+				order[tail++] = children[i];
+
+		int levels = 1;
+		while ((1 << levels) < N)
+			levels++;
+		log = levels;
+		depth = new int[N];
+		up = new int[log * N];
+		lightest = new double[log * N];
+		for (int v : order) {
+			if (v == 0) {
+				up[v] = 0;
+				lightest[v] = Double.POSITIVE_INFINITY;
+			} else {
+				depth[v] = depth[parent[v]] + 1;
+				up[v] = parent[v];
+				lightest[v] = weight[v];
+			}
+			for (int k = 1; k < log; k++) {
+				int mid = up[(k - 1) * N + v];
+				up[k * N + v] = up[(k - 1) * N + mid];
+				lightest[k * N + v] = Math.min(lightest[(k - 1) * N + v], lightest[(k - 1) * N + mid]);
+			}
+		}
+	}
+
+	/**
+	 * Copy a network into a residual graph with an arc
+	 * each way for every edge
+	 * @param G the flow network
+	 * @return the undirected residual graph
+	 */
+	private static FlowGraph undirected(FlowGraph G) {
+		FlowGraph H = new FlowGraph(G.size(), 2 * G.edges());
+		for (int id = 0; id < G.edges(); id++) {
+			int v = G.from(2 * id), w = G.to(2 * id);
+			if (v == w) continue;
+			H.addEdge(v, w, G.capacity(id));
+			H.addEdge(w, v, G.capacity(id));
+		}
+		return H;
+	}
+
+	/**
+	 * Compute the value of the minimum cut between two vertices,
+	 * the lightest edge on the tree path between them
+	 * @param v the first vertex
+	 * @param w the second vertex
+	 * @return the min cut between v and w, infinity if v is w
+	 * @throws IllegalArgumentException if v or w is not a valid vertex
+	 */
+	public double minCut(int v, int w) {
+		if (v < 0 || v >= N || w < 0 || w >= N)
+			throw new IllegalArgumentException("The value " + v + " or " + w +
+					" is not in the range [0, " + N + "]");
+		double cut = Double.POSITIVE_INFINITY;
+		if (depth[v] < depth[w]) {
+			int tmp = v;
+			v = w;
+			w = tmp;
+		}
+		for (int k = log - 1; k >= 0; k--)
+			if (depth[v] - (1 << k) >= depth[w]) {
+				cut = Math.min(cut, lightest[k * N + v]);
+				v = up[k * N + v];
+			}
+		if (v == w) return cut;
+		for (int k = log - 1; k >= 0; k--)
+			if (up[k * N + v] != up[k * N + w]) {
+				cut = Math.min(cut, Math.min(lightest[k * N + v], lightest[k * N + w]));
+				v = up[k * N + v];
+				w = up[k * N + w];
+			}
+		return Math.min(cut, Math.min(weight[v], weight[w]));
+	}
+
+	/**
+	 * Get the parent of a vertex in the tree
+	 * @param v the vertex to inspect
+	 * @return the parent of v, -1 if v is the root 0
+	 */
+	public int parent(int v) {
+		return parent[v];
+	}
+
+	/**
+	 * Get the weight of the tree edge between a vertex and its parent,
+	 * which is the min cut between the two
+	 * @param v the vertex to inspect, which is not the root
+	 * @return the weight of the edge above v
+	 */
+	public double weight(int v) {
+		return weight[v];
+	}
+
+	/**
+	 * Get the number of max flows computed, which is N - 1 plus
+	 * the cuts that had to be redone
+	 * @return the number of max flows
+	 */
+	public int flows() {
+		return flows;
+	}
+
+	/**
+	 * Report how building the tree scales with the number of threads
+	 * on a random network, checking some pairs against Dinic
+	 * @param args the size of the graph, the number of edges and the
+	 * 		largest thread count
+	 */
+	public static void main(String[] args) {
+		int N = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		int M = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		Random random = new Random(N);
+		FlowGraph G = new FlowGraph(N, M);
+		for (int i = 0; i < M; i++)
+			G.addEdge(random.nextInt(N), random.nextInt(N), 1 + random.nextInt(100));
+		GomoryHuTree tree = null;
+		for (int p = 1; p <= threads; p *= 2) {
+			ForkJoinPool pool = new ForkJoinPool(p);
+			long start = System.nanoTime();
+			tree = new GomoryHuTree(G, pool);
+			System.out.printf("%-10s %8d flows %10.2f ms%n", p + " threads", tree.flows(),
+					(System.nanoTime() - start) / 1e6);
+			pool.shutdown();
+		}
+		FlowGraph H = undirected(G);
+		for (int i = 0; i < 5; i++) {
+			int v = random.nextInt(N), w = random.nextInt(N);
+			if (v == w) continue;
+			H.reset();
+			System.out.printf("min cut(%d, %d) = %.1f, Dinic %.1f%n", v, w, tree.minCut(v, w),
+					new Dinic(H, v, w).value());
+		}
+	}
+}
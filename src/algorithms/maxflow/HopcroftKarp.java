@@ -0,0 +1,255 @@
+package algorithms.maxflow;
+
+import java.util.LinkedList;
+import java.util.Random;
+
+import datastructures.edges.FlowEdge;
+
+/**
+ * The Hopcroft-Karp Algorithm to find a maximum matching of a bipartite
+ * graph in |E| sqrt|V|. It is Dinic's Algorithm specialized to unit capacity
+ * matching networks without building them: a BFS from every free left vertex
+ * levels the graph along alternating paths, and a DFS with current arc
+ * pointers then augments a maximal set of shortest disjoint alternating paths
+ * at once. By Konig's theorem the left vertices the last BFS can't reach and
+ * the right vertices it can form a minimum vertex cover
+ *
+ * @author An Nguyen
+ *
+ */
+public class HopcroftKarp {
+	private static final int INFINITY = Integer.MAX_VALUE;
+
+	private final int L, R;			// the number of left and right vertices
+	private final int[] begin;		// the neighbors of left vertex u are adj[begin[u]..begin[u + 1])
+	private final int[] adj;		// the right neighbors of every left vertex
+	private final int[] mateLeft;	// the right vertex matched to u, -1 if u is free
+	private final int[] mateRight;	// the left vertex matched to v, -1 if v is free
+	private final int[] level;		// the length of the shortest alternating path from a free
+									// left vertex to left vertex u, INFINITY if there is none
+	private final int[] current;	// the next arc of u worth trying in this phase
+	private final int[] queue;		// the BFS queue and the DFS path of left vertices
+	private int limit;				// the level of the left vertices next to the nearest
+									// free right vertex, INFINITY if none can be reached
+	private int size;				// the number of matched pairs
+
+	/**
+	 * Compute a maximum matching of a bipartite graph given as an edge
+	 * list, where edge i joins left vertex left[i] to right vertex right[i]
+	 * @param L the number of left vertices
+	 * @param R the number of right vertices
+	 * @param left the left end of each edge
+	 * @param right the right end of each edge
+	 * @throws IllegalArgumentException if the arrays have different lengths
+	 * 		or an end is not a valid vertex
+	 */
+	public HopcroftKarp(int L, int R, int[] left, int[] right) {
+		if (left.length != right.length)
+			throw new IllegalArgumentException("There are " + left.length + " left ends and " +
+					right.length + " right ends");
+		this.L = L;
+		this.R = R;
+		begin = new int[L + 1];
+		for (int i = 0; i < left.length; i++) {
+			if (left[i] < 0 || left[i] >= L)
+				throw new IllegalArgumentException("The value " + left[i] + " is not in the range [0, " + L + "]");
+			if (right[i] < 0 || right[i] >= R)
+				throw new IllegalArgumentException("The value " + right[i] + " is not in the range [0, " + R + "]");
+			begin[left[i] + 1]++;
+		}
+		for (int u = 0; u < L; u++)
+			begin[u + 1] += begin[u];
+		adj = new int[left.length];
+		int[] fill = new int[L];
+		for (int i = 0; i < left.length; i++)
+			adj[begin[left[i]] + fill[left[i]]++] = right[i];
+
+		mateLeft = new int[L];
+		mateRight = new int[R];
+		level = new int[L];
+		current = new int[L];
+		queue = new int[L];
+		for (int u = 0; u < L; u++)
+			mateLeft[u] = -1;
+		for (int v = 0; v < R; v++)
+			mateRight[v] = -1;
+		while (BFS()) {
+			for (int u = 0; u < L; u++)
+				current[u] = begin[u];
+			for (int u = 0; u < L; u++)
+				if (mateLeft[u] == -1 && augment(u))
+					size++;
+		}
+	}
+
+	/**
+	 * Level the left vertices by their distance from the free left vertices,
+	 * going from a left vertex to any right neighbor and from there back along
+	 * its matched edge, like DinicNaive.BFS levels the residual graph. Once a
+	 * free right vertex is seen the BFS stops going deeper than its level, so
+	 * a phase only augments shortest paths. A BFS that finds none levels every
+	 * reachable left vertex, which the vertex cover relies on
+	 * @return whether some free right vertex can be reached
+	 */
+	private boolean BFS() {
+		int head = 0, tail = 0;
+		for (int u = 0; u < L; u++)
+			if (mateLeft[u] == -1) {
+				level[u] = 0;
+				queue[tail++] = u;
+			} else
+				level[u] = INFINITY;
+		limit = INFINITY;
+		while (head < tail) {
+			int u = queue[head++];
+			if (level[u] > limit)
+				break;
+			for (int i = begin[u]; i < begin[u + 1]; i++) {
+				int x = mateRight[adj[i]];
+				if (x == -1) {
+					if (limit == INFINITY)
+						limit = level[u];
+				} else if (level[x] == INFINITY && level[u] < limit) {
+					level[x] = level[u] + 1;
+					queue[tail++] = x;
+				}
+			}
+		}
+		return limit != INFINITY;
+	}
+
+	/**
+	 * Look for an alternating path from a free left vertex to a free right
+	 * vertex that climbs one level at a time and flip it. A free right vertex
+	 * only ends a path from the last level, so every path is a shortest one.
+	 * Left vertices that lead nowhere are cut off the level graph for the
+	 * rest of the phase
+	 * @param root the free left vertex to start from
+	 * @return whether a path was found
+	 */
+	private boolean augment(int root) {
+		int[] path = queue;		// not in use until the next BFS
+		int depth = 0;
+		path[depth++] = root;
+		while (depth > 0) {
+			int u = path[depth - 1];
+			int i = current[u];
+			int x = -1;
+			for (; i < begin[u + 1]; i++) {
+				x = mateRight[adj[i]];
+				if (x == -1 ? level[u] == limit : level[u] < limit && level[x] == level[u] + 1) break;
+			}
+			current[u] = i;
+			if (i == begin[u + 1]) {
+				// Retreat from the dead end and skip the arc that led into it
+				level[u] = INFINITY;
+				if (--depth > 0)
+					current[path[depth - 1]]++;
+			} else if (x == -1) {
+				// Flip every edge of the path
+				for (int d = 0; d < depth; d++) {
+					int w = path[d], v = adj[current[w]];
+					mateLeft[w] = v;
+					mateRight[v] = w;
+				}
+				return true;
+			} else
+				path[depth++] = x;
+		}
+		return false;
+	}
+
+	/**
+	 * Get the number of edges in the maximum matching
+	 * @return the size of the matching
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Get the right vertex matched to a left vertex
+	 * @param u the left vertex
+	 * @return the right vertex matched to u, -1 if u is free
+	 */
+	public int mateOfLeft(int u) {
+		return mateLeft[u];
+	}
+
+	/**
+	 * Get the left vertex matched to a right vertex
+	 * @param v the right vertex
+	 * @return the left vertex matched to v, -1 if v is free
+	 */
+	public int mateOfRight(int v) {
+		return mateRight[v];
+	}
+
+	/**
+	 * Get the matching as the right vertex matched to every left vertex
+	 * @return a copy of the mate of every left vertex, -1 if it is free
+	 */
+	public int[] matching() {
+		return mateLeft.clone();
+	}
+
+	/**
+	 * Compute whether a left vertex belongs to the minimum vertex cover,
+	 * which holds when no alternating path from a free left vertex reaches it
+	 * @param u the left vertex to inspect
+	 * @return whether u belongs to the minimum vertex cover
+	 */
+	public boolean leftInCover(int u) {
+		return level[u] == INFINITY;
+	}
+
+	/**
+	 * Compute whether a right vertex belongs to the minimum vertex cover,
+	 * which holds when some alternating path from a free left vertex reaches it
+	 * @param v the right vertex to inspect
+	 * @return whether v belongs to the minimum vertex cover
+	 */
+	public boolean rightInCover(int v) {
+		return mateRight[v] != -1 && level[mateRight[v]] != INFINITY;
+	}
+
+	/**
+	 * Compare the running time of HopcroftKarp with FordFulkerson on a
+	 * unit capacity network with a super source and super sink
+	 * @param args the number of vertices on each side and the number of edges
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public static void main(String[] args) {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+		int M = args.length > 1 ? Integer.parseInt(args[1]) : 25000;
+		Random random = new Random(n);
+		int[] left = new int[M], right = new int[M];
+		for (int i = 0; i < M; i++) {
+			left[i] = random.nextInt(n);
+			right[i] = random.nextInt(n);
+		}
+		long start = System.nanoTime();
+		int size = new HopcroftKarp(n, n, left, right).size();
+		System.out.printf("%-14s %8d %10.2f ms%n", "HopcroftKarp", size, (System.nanoTime() - start) / 1e6);
+
+		int N = 2 * n + 2, s = 2 * n, t = 2 * n + 1;
+		LinkedList<FlowEdge>[] adj = (LinkedList<FlowEdge>[]) new LinkedList[N];
+		for (int v = 0; v < N; v++)
+			adj[v] = new LinkedList<FlowEdge>();
+		for (int v = 0; v < n; v++) {
+			FlowEdge e = new FlowEdge(s, v, 1), f = new FlowEdge(n + v, t, 1);
+			adj[s].add(e);
+			adj[v].add(e);
+			adj[n + v].add(f);
+			adj[t].add(f);
+		}
+		for (int i = 0; i < M; i++) {
+			FlowEdge e = new FlowEdge(left[i], n + right[i], 1);
+			adj[left[i]].add(e);
+			adj[n + right[i]].add(e);
+		}
+		start = System.nanoTime();
+		double value = new FordFulkerson(N, adj, s, t).value();
+		System.out.printf("%-14s %8d %10.2f ms%n", "FordFulkerson", (int) value, (System.nanoTime() - start) / 1e6);
+	}
+}
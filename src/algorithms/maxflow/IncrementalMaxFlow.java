@@ -0,0 +1,207 @@
+package algorithms.maxflow;
+
+import datastructures.graphs.FlowGraph;
+
+/**
+ * A max flow that is kept up to date while capacities change. The flow is
+ * solved once with Dinic, and after that every change starts from the
+ * current residual graph. Raising a capacity or adding an edge can only open
+ * augmenting paths through that edge, and lowering a capacity below its flow
+ * first reroutes or cancels the overflow before augmenting again, so an
+ * update only searches as far as the flow it disturbs
+ *
+ * @author An Nguyen
+ *
+ */
+public class IncrementalMaxFlow {
+	private final FlowGraph G;		// the residual graph
+	private final int s, t;			// the source and sink vertices
+	private double value;			// the maxflow of the graph
+	private final int[] queue;		// the BFS queue
+	private final int[] edgeTo;		// the arc that reached v in the last BFS
+	private final int[] version;	// the BFS that last reached v
+	private int stamp;				// the current BFS
+	private boolean[] inCut;		// the source side of the minimum cut, null if stale
+
+	/**
+	 * Compute the maxflow of a flow network and keep its residual
+	 * graph for later updates
+	 * @param G the residual graph, which always holds the max flow
+	 * @param s the source vertex
+	 * @param t the sink vertex
+	 * @throws IllegalArgumentException if s or t is not a valid vertex, or s is t
+	 */
+	public IncrementalMaxFlow(FlowGraph G, int s, int t) {
+		new Dinic(G, s, t);
+		this.G = G;
+		this.s = s;
+		this.t = t;
+		queue = new int[G.size()];
+		edgeTo = new int[G.size()];
+		version = new int[G.size()];
+		value = netFlow();
+	}
+
+	/**
+	 * Add a new edge and bring the max flow up to date
+	 * @param v the tail of the edge
+	 * @param w the head of the edge
+	 * @param cap the capacity of the edge
+	 * @return the id of the edge
+	 * @throws IllegalArgumentException if v or w is not a valid vertex
+	 * 		or cap is negative
+	 */
+	public int addEdge(int v, int w, double cap) {
+		int id = G.addEdge(v, w, cap);
+		augment(s, t, cap);
+		update();
+		return id;
+	}
+
+	/**
+	 * Raise the capacity of an edge and bring the max flow up to date.
+	 * The flow can grow by at most the added capacity
+	 * @param id the id of the edge
+	 * @param delta how much to add to the capacity
+	 * @throws IllegalArgumentException if delta is negative
+	 */
+	public void increaseCapacity(int id, double delta) {
+		if (!(delta >= 0))
+			throw new IllegalArgumentException("The increase " + delta + " is negative");
+		G.setCapacity(id, G.capacity(id) + delta);
+		augment(s, t, delta);
+		update();
+	}
+
+	/**
+	 * Lower the capacity of an edge and bring the max flow up to date.
+	 * If the edge carries more flow than its new capacity, the overflow is
+	 * rerouted around the edge where possible, and what can't be rerouted is
+	 * cancelled back to the source and from the sink before the flow is
+	 * augmented again
+	 * @param id the id of the edge
+	 * @param delta how much to take off the capacity
+	 * @throws IllegalArgumentException if delta is negative or larger than the capacity
+	 */
+	public void decreaseCapacity(int id, double delta) {
+		double cap = G.capacity(id) - delta;
+		if (!(delta >= 0) || cap < 0)
+			throw new IllegalArgumentException("Cannot decrease the capacity " + G.capacity(id) + " by " + delta);
+		double overflow = G.flow(id) - cap;
+		if (overflow <= 0) {
+			G.setCapacity(id, cap);
+			update();
+			return;
+		}
+		// Take the overflow off the edge, leaving an excess at its tail
+		// and a deficit at its head
+		int v = G.from(2 * id), w = G.to(2 * id);
+		G.push(2 * id + 1, overflow);
+		G.setCapacity(id, cap);
+		double rest = v == w ? 0 : overflow - augment(v, w, overflow);
+		if (rest > 0) {
+			if (v != s && v != t)
+				augment(v, s, rest);
+			if (w != s && w != t)
+				augment(t, w, rest);
+			augment(s, t, Double.POSITIVE_INFINITY);
+		}
+		update();
+	}
+
+	/**
+	 * Send up to a limited amount of flow from one vertex to another
+	 * along shortest augmenting paths of the residual graph
+	 * @param from the vertex the flow leaves
+	 * @param to the vertex the flow arrives at
+	 * @param limit the most flow to send
+	 * @return the flow sent
+	 */
+	private double augment(int from, int to, double limit) {
+		double sent = 0;
+		while (sent < limit && hasAugmentingPath(from, to)) {
+			double bottle = limit - sent;
+			for (int x = to; x != from; x = G.from(edgeTo[x]))
+				bottle = Math.min(bottle, G.residual(edgeTo[x]));
+			for (int x = to; x != from; x = G.from(edgeTo[x]))
+				G.push(edgeTo[x], bottle);
+			sent += bottle;
+		}
+		return sent;
+	}
+
+	/**
+	 * Determines if there is a path from one vertex to another through
+	 * arcs with residual capacity, stopping as soon as it is found
+	 * @param from the start of the path
+	 * @param to the end of the path
+	 * @return whether there is a path
+	 */
+	private boolean hasAugmentingPath(int from, int to) {
+		if (stamp == Integer.MAX_VALUE) {
+			for (int v = 0; v < version.length; v++)
+				version[v] = 0;
+			stamp = 0;
+		}
+		stamp++;
+		int head = 0, tail = 0;
+		version[from] = stamp;
+		queue[tail++] = from;
+		while (head < tail) {
+			int v = queue[head++];
+			for (int a = G.head(v); a != -1; a = G.next(a)) {
+				int w = G.to(a);
+				if (version[w] != stamp && G.residual(a) > 0) {
+					version[w] = stamp;
+					edgeTo[w] = a;
+					if (w == to) return true;
+					queue[tail++] = w;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Recompute the value after an update and forget the old cut
+	 */
+	private void update() {
+		value = netFlow();
+		inCut = null;
+	}
+
+	/**
+	 * Compute the net flow out of the source
+	 * @return the value of the current flow
+	 */
+	private double netFlow() {
+		double flow = 0;
+		for (int a = G.head(s); a != -1; a = G.next(a))
+			flow += a % 2 == 0 ? G.flow(a / 2) : -G.flow(a / 2);
+		return flow;
+	}
+
+	/**
+	 * Compute the value of the max flow
+	 * @return the max flow
+	 */
+	public double value() {
+		return value;
+	}
+
+	/**
+	 * Compute whether a vertex v belongs to the source side
+	 * of the minimum cut
+	 * @param v the vertex to inspect
+	 * @return whether v belongs to the minimum cut
+	 */
+	public boolean inCut(int v) {
+		if (inCut == null) {
+			hasAugmentingPath(s, -1);
+			inCut = new boolean[G.size()];
+			for (int w = 0; w < G.size(); w++)
+				inCut[w] = version[w] == stamp;
+		}
+		return inCut[v];
+	}
+}
@@ -0,0 +1,119 @@
+package algorithms.maxflow;
+
+import datastructures.graphs.ResidualGraph;
+
+/**
+ * The level graph of Dinic's Algorithm over any ResidualGraph, with the
+ * current arc pointers and the array DFS described in Dinic. It only finds
+ * the paths of a blocking flow, so Dinic and LongDinic share it and each
+ * pushes flow along them with its own type of capacity
+ *
+ * @author An Nguyen
+ *
+ */
+class LevelGraph {
+	private final ResidualGraph G;	// the residual graph
+	private final int s, t;			// the source and the sink
+	private final int[] level;		// the distance of v from the source in the residual
+									// graph, -1 if the source can't reach it
+	private final int[] current;	// the next arc of v worth trying in this phase
+	private final int[] queue;		// the BFS queue
+	private final int[] path;		// the arcs of the DFS path from the source
+
+	/**
+	 * Prepare to level a residual graph between a source and a sink
+	 * @param G the residual graph
+	 * @param s the source vertex
+	 * @param t the sink vertex
+	 * @throws IllegalArgumentException if s or t is not a valid vertex, or s is t
+	 */
+	LevelGraph(ResidualGraph G, int s, int t) {
+		int N = G.size();
+		if (s < 0 || s >= N || t < 0 || t >= N || s == t)
+			throw new IllegalArgumentException("Invalid source " + s + " and sink " + t +
+					" in the range [0, " + N + "]");
+		this.G = G;
+		this.s = s;
+		this.t = t;
+		level = new int[N];
+		current = new int[N];
+		queue = new int[N];
+		path = new int[N];
+	}
+
+	/**
+	 * Compute the level graph and whether the sink can be reached
+	 * from the source, rewinding every current arc pointer for the
+	 * next blocking flow
+	 * @return whether the sink can be reached
+	 */
+	boolean BFS() {
+		for (int v = 0; v < level.length; v++) {
+			level[v] = -1;
+			current[v] = G.head(v);
+		}
+		int head = 0, tail = 0;
+		level[s] = 0;
+		queue[tail++] = s;
+		while (head < tail) {
+			int v = queue[head++];
+			for (int a = G.head(v); a != -1; a = G.next(a)) {
+				int w = G.to(a);
+				if (!G.saturated(a) && level[w] == -1) {
+					level[w] = level[v] + 1;
+					queue[tail++] = w;
+				}
+			}
+		}
+		return level[t] != -1;
+	}
+
+	/**
+	 * Find a path of arcs that climb one level at a time from the source
+	 * to the sink. Arcs that lead nowhere are skipped for good by moving
+	 * the current arc pointer past them, and dead end vertices are cut off
+	 * the level graph
+	 * @return the number of arcs on the path, which are read with arc,
+	 * 		or 0 if the blocking flow is complete
+	 */
+	int findPath() {
+		int depth = 0, v = s;
+		while (v != t) {
+			int a = current[v];
+			while (a != -1 && (G.saturated(a) || level[G.to(a)] != level[v] + 1))
+				a = G.next(a);
+			current[v] = a;
+			if (a != -1) {
+				path[depth++] = a;
+				v = G.to(a);
+			} else {
+				// Retreat from the dead end and skip the arc that led into it
+				if (v == s) return 0;
+				level[v] = -1;
+				int back = path[--depth];
+				v = G.from(back);
+				current[v] = G.next(back);
+			}
+		}
+		return depth;
+	}
+
+	/**
+	 * Get an arc of the last path found
+	 * @param i the position of the arc on the path, from the source
+	 * @return the index of the arc
+	 */
+	int arc(int i) {
+		return path[i];
+	}
+
+	/**
+	 * Compute whether a vertex v was reached by the last BFS,
+	 * which after the last phase is the source side of the minimum cut
+	 * @param v the vertex to inspect
+	 * @return whether v was reached
+	 */
+	boolean reached(int v) {
+		return level[v] != -1;
+	}
+}
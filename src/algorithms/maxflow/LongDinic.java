@@ -0,0 +1,116 @@
+package algorithms.maxflow;
+
+import java.util.LinkedList;
+import java.util.Random;
+
+import datastructures.edges.FlowEdge;
+import datastructures.graphs.FlowGraph;
+import datastructures.graphs.LongFlowGraph;
+
+/**
+ * Dinic's Algorithm over a residual graph with integer capacities. It works
+ * exactly like Dinic, with current arc pointers and an array DFS, but every
+ * residual capacity is a long, so a bottleneck is never lost to rounding and
+ * an arc is saturated exactly when its residual reaches 0
+ *
+ * @author An Nguyen
+ *
+ */
+public class LongDinic {
+	private final LongFlowGraph G;		// the residual graph
+	private final LevelGraph levels;	// the level graph of the residual graph
+	private long value;					// the maxflow of the graph
+
+	/**
+	 * Compute the maxflow of a flow network given as an adjacency list.
+	 * The edges are copied into a residual graph, so the flow found is
+	 * not written back into them
+	 * @param N the size of the graph
+	 * @param adj the adjacency list that represents the flow graph
+	 * @param s the source vertex
+	 * @param t the sink vertex
+	 * @throws IllegalArgumentException if a capacity is not an integer
+	 */
+	public LongDinic(int N, LinkedList<FlowEdge>[] adj, int s, int t) {
+		this(LongFlowGraph.of(N, adj), s, t);
+	}
+
+	/**
+	 * Compute the maxflow of a flow network, adding it to the flow
+	 * already in the residual graph
+	 * @param G the residual graph, which holds the max flow afterwards
+	 * @param s the source vertex
+	 * @param t the sink vertex
+	 * @throws IllegalArgumentException if s or t is not a valid vertex, or s is t
+	 */
+	public LongDinic(LongFlowGraph G, int s, int t) {
+		this.G = G;
+		levels = new LevelGraph(G, s, t);
+		while (levels.BFS()) {
+			long flow;
+			while ((flow = sendFlow()) > 0)
+				value += flow;
+		}
+	}
+
+	/**
+	 * Find a path in the level graph from the source to the sink
+	 * and push as much flow along it as it can take
+	 * @return the flow pushed, or 0 if the blocking flow is complete
+	 */
+	private long sendFlow() {
+		int depth = levels.findPath();
+		long flow = Long.MAX_VALUE;
+		for (int i = 0; i < depth; i++)
+			flow = Math.min(flow, G.residual(levels.arc(i)));
+		for (int i = 0; i < depth; i++)
+			G.push(levels.arc(i), flow);
+		return depth == 0 ? 0 : flow;
+	}
+
+	/**
+	 * Compute the value of the max flow
+	 * @return the max flow
+	 */
+	public long value() {
+		return value;
+	}
+
+	/**
+	 * Compute whether a vertex v belongs to the source side
+	 * of the minimum cut
+	 * @param v the vertex to inspect
+	 * @return whether v belongs to the minimum cut
+	 */
+	public boolean inCut(int v) {
+		return levels.reached(v);
+	}
+
+	/**
+	 * Compare the running time of LongDinic with Dinic on the
+	 * same random flow network with integer capacities
+	 * @param args the size of the graph and the number of edges
+	 */
+	public static void main(String[] args) {
+		int N = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+		int M = args.length > 1 ? Integer.parseInt(args[1]) : 200000;
+		Random random = new Random(N);
+		FlowGraph D = new FlowGraph(N, M);
+		LongFlowGraph L = new LongFlowGraph(N, M);
+		for (int i = 0; i < M; i++) {
+			int v = random.nextInt(N), w = random.nextInt(N), cap = 1 + random.nextInt(100);
+			D.addEdge(v, w, cap);
+			L.addEdge(v, w, cap);
+		}
+		for (int round = 0; round < 3; round++) {
+			D.reset();
+			long start = System.nanoTime();
+			double value = new Dinic(D, 0, N - 1).value();
+			System.out.printf("%-10s %12.1f %10.2f ms%n", "Dinic", value, (System.nanoTime() - start) / 1e6);
+			L.reset();
+			start = System.nanoTime();
+			long exact = new LongDinic(L, 0, N - 1).value();
+			System.out.printf("%-10s %12d %10.2f ms%n", "LongDinic", exact, (System.nanoTime() - start) / 1e6);
+		}
+	}
+}
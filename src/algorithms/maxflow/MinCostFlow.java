@@ -0,0 +1,333 @@
+package algorithms.maxflow;
+
+import java.util.Random;
+
+import datastructures.graphs.FlowGraph;
+import datastructures.trees.IndexMinDoublePQ;
+
+/**
+ * Find a maximum flow of least total cost in a flow network whose edges
+ * carry a cost per unit of flow. Two methods are available. Successive
+ * shortest paths augments along a cheapest path at a time, found by Djikstra
+ * over costs reduced by Johnson potentials so no arc looks negative, with the
+ * potentials raised by the distances of each search. Cost scaling first finds
+ * a max flow with Dinic, then cancels its negative cycles by push-relabel on
+ * eps-optimal prices while eps shrinks geometrically, which does not depend on
+ * the size of the flow and suits large instances with integer costs
+ *
+ * @author An Nguyen
+ *
+ */
+public class MinCostFlow {
+	private static final long ALPHA = 16;	// the factor eps shrinks by between refines
+
+	private final FlowGraph G;		// the residual graph
+	private final int N;			// the size of the graph
+	private final int s, t;			// the source and sink vertices
+	private double value;			// the maxflow of the graph
+	private double cost;			// the total cost of the flow
+	private long iterations;		// the number of augmenting paths or refines
+
+	/**
+	 * The ways the min cost flow can be found
+	 * @author An Nguyen
+	 *
+	 */
+	public enum Method {
+		/** Augment along cheapest paths found by Djikstra with potentials */
+		SUCCESSIVE_SHORTEST_PATHS,
+		/** Find a max flow, then refine prices by push-relabel, which needs integer costs */
+		COST_SCALING
+	}
+
+	/**
+	 * Compute a min cost max flow by successive shortest paths
+	 * @param G the residual graph, which holds the flow afterwards
+	 * @param s the source vertex
+	 * @param t the sink vertex
+	 * @throws IllegalArgumentException if s or t is not a valid vertex, s is t,
+	 * 		or the residual graph has a cycle of negative cost
+	 */
+	public MinCostFlow(FlowGraph G, int s, int t) {
+		this(G, s, t, Method.SUCCESSIVE_SHORTEST_PATHS);
+	}
+
+	/**
+	 * Compute a min cost max flow, starting from the flow already in the
+	 * residual graph, which must not have a cycle of negative cost
+	 * @param G the residual graph, which holds the flow afterwards
+	 * @param s the source vertex
+	 * @param t the sink vertex
+	 * @param method how the flow is found
+	 * @throws IllegalArgumentException if s or t is not a valid vertex, s is t,
+	 * 		the residual graph has a cycle of negative cost, or cost scaling is
+	 * 		asked for with costs that are not integers
+	 */
+	public MinCostFlow(FlowGraph G, int s, int t, Method method) {
+		N = G.size();
+		if (s < 0 || s >= N || t < 0 || t >= N || s == t)
+			throw new IllegalArgumentException("Invalid source " + s + " and sink " + t +
+					" in the range [0, " + N + "]");
+		this.G = G;
+		this.s = s;
+		this.t = t;
+		if (method == Method.COST_SCALING)
+			costScaling();
+		else
+			successiveShortestPaths();
+		for (int a = G.head(s); a != -1; a = G.next(a))
+			value += a % 2 == 0 ? G.flow(a / 2) : -G.flow(a / 2);
+		for (int id = 0; id < G.edges(); id++)
+			cost += G.flow(id) * G.cost(2 * id);
+	}
+
+	/**
+	 * Augment along cheapest paths until the sink can't be reached.
+	 * Each search stops once the sink is settled, so the vertices it
+	 * didn't settle have their potential raised by the distance of the
+	 * sink, which keeps every reduced cost nonnegative
+	 */
+	private void successiveShortestPaths() {
+		double[] potential = bellmanFord();
+		double[] dist = new double[N];
+		int[] edgeTo = new int[N];
+		boolean[] settled = new boolean[N];
+		IndexMinDoublePQ pq = new IndexMinDoublePQ(N);
+		while (true) {
+			for (int v = 0; v < N; v++) {
+				dist[v] = Double.POSITIVE_INFINITY;
+				settled[v] = false;
+			}
+			pq.clear();
+			dist[s] = 0;
+			pq.insert(s, 0);
+			while (!pq.isEmpty()) {
+				int v = pq.dequeue();
+				settled[v] = true;
+				if (v == t) break;
+				for (int a = G.head(v); a != -1; a = G.next(a)) {
+					if (G.residual(a) <= 0) continue;
+					int w = G.to(a);
+					if (settled[w]) continue;
+					// Rounding can leave a reduced cost a hair below 0
+					double reduced = Math.max(0, G.cost(a) + potential[v] - potential[w]);
+					if (dist[v] + reduced < dist[w]) {
+						dist[w] = dist[v] + reduced;
+						edgeTo[w] = a;
+						if (pq.contains(w))
+							pq.decreaseKey(w, dist[w]);
+						else
+							pq.insert(w, dist[w]);
+					}
+				}
+			}
+			if (!settled[t]) return;
+			for (int v = 0; v < N; v++)
+				potential[v] += settled[v] ? dist[v] : dist[t];
+			double bottle = Double.POSITIVE_INFINITY;
+			for (int v = t; v != s; v = G.from(edgeTo[v]))
+				bottle = Math.min(bottle, G.residual(edgeTo[v]));
+			for (int v = t; v != s; v = G.from(edgeTo[v]))
+				G.push(edgeTo[v], bottle);
+			iterations++;
+		}
+	}
+
+	/**
+	 * Compute the starting potentials as the distances from the source
+	 * over the residual arcs, which may have negative costs. If no arc
+	 * has a negative cost, every potential is 0
+	 * @return the potential of each vertex
+	 * @throws IllegalArgumentException if there is a cycle of negative cost
+	 */
+	private double[] bellmanFord() {
+		double[] dist = new double[N];
+		boolean negative = false;
+		for (int a = 0; a < G.arcs() && !negative; a++)
+			negative = G.residual(a) > 0 && G.cost(a) < 0;
+		if (!negative) return dist;
+
+		// A queue based Bellman-Ford, where a vertex queued N times
+		// must lie behind a negative cycle
+		for (int v = 0; v < N; v++)
+			dist[v] = Double.POSITIVE_INFINITY;
+		int[] queue = new int[N + 1];
+		int[] count = new int[N];
+		boolean[] queued = new boolean[N];
+		int head = 0, tail = 0;
+		dist[s] = 0;
+		queue[tail++] = s;
+		queued[s] = true;
+		while (head != tail) {
+			int v = queue[head];
+			head = head == N ? 0 : head + 1;
+			queued[v] = false;
+			for (int a = G.head(v); a != -1; a = G.next(a)) {
+				int w = G.to(a);
+				if (G.residual(a) > 0 && dist[v] + G.cost(a) < dist[w]) {
+					dist[w] = dist[v] + G.cost(a);
+					if (queued[w]) continue;
+					if (++count[w] >= N)
+						throw new IllegalArgumentException("The residual graph has a cycle of negative cost");
+					queued[w] = true;
+					queue[tail] = w;
+					tail = tail == N ? 0 : tail + 1;
+				}
+			}
+		}
+		// The source never reaches the rest, so any potential works there
+		for (int v = 0; v < N; v++)
+			if (dist[v] == Double.POSITIVE_INFINITY)
+				dist[v] = 0;
+		return dist;
+	}
+
+	/**
+	 * Find a max flow with Dinic, then make it cheapest by cost scaling.
+	 * Costs are multiplied by N + 1, and refining stops at eps = 1, where every
+	 * reduced cost is at least -1. A residual cycle has at most N arcs, so its
+	 * scaled cost is then above -(N + 1), and being a multiple of N + 1 it
+	 * can't be negative, so neither is its cost in the original costs
+	 * @throws IllegalArgumentException if a cost is not an integer or
+	 * 		the scaled costs would overflow
+	 */
+	private void costScaling() {
+		int M = G.arcs();
+		long[] scaled = new long[M];
+		long eps = 0;
+		for (int a = 0; a < M; a++) {
+			double c = G.cost(a);
+			if (c != Math.rint(c) || Math.abs(c) > Long.MAX_VALUE / (4L * (N + 1) * (N + 1)))
+				throw new IllegalArgumentException("The cost " + c + " can't be scaled as an integer");
+			scaled[a] = (long) c * (N + 1);
+			eps = Math.max(eps, Math.abs(scaled[a]));
+		}
+		new Dinic(G, s, t);
+		long[] price = new long[N];
+		double[] excess = new double[N];
+		int[] current = new int[N];
+		int[] queue = new int[N + 1];
+		boolean[] queued = new boolean[N];
+		while (eps > 1) {
+			eps = Math.max(1, eps / ALPHA);
+			refine(eps, scaled, price, excess, current, queue, queued);
+			iterations++;
+		}
+	}
+
+	/**
+	 * Turn an eps * ALPHA optimal flow into an eps optimal one. Every arc
+	 * with a negative reduced cost is saturated, and the excess this leaves
+	 * is discharged in FIFO order along arcs of negative reduced cost,
+	 * lowering the price of a vertex whenever it has none
+	 * @param eps the optimality to reach
+	 * @param scaled the scaled cost of each arc
+	 * @param price the price of each vertex
+	 * @param excess the excess of each vertex, all 0 between refines
+	 * @param current the next arc of v worth trying
+	 * @param queue the FIFO queue of active vertices
+	 * @param queued whether v is in the queue
+	 */
+	private void refine(long eps, long[] scaled, long[] price, double[] excess,
+			int[] current, int[] queue, boolean[] queued) {
+		for (int v = 0; v < N; v++) {
+			current[v] = G.head(v);
+			for (int a = G.head(v); a != -1; a = G.next(a)) {
+				double r = G.residual(a);
+				if (r > 0 && scaled[a] + price[v] - price[G.to(a)] < 0) {
+					G.push(a, r);
+					excess[v] -= r;
+					excess[G.to(a)] += r;
+				}
+			}
+		}
+		int head = 0, tail = 0;
+		for (int v = 0; v < N; v++)
+			if (excess[v] > 0) {
+				queue[tail++] = v;
+				queued[v] = true;
+			}
+		while (head != tail) {
+			int v = queue[head];
+			head = head == N ? 0 : head + 1;
+			queued[v] = false;
+			while (excess[v] > 0) {
+				int a = current[v];
+				if (a == -1) {
+					// Lower the price until the cheapest residual arc costs -eps
+					long highest = Long.MIN_VALUE;
+					for (int b = G.head(v); b != -1; b = G.next(b))
+						if (G.residual(b) > 0)
+							highest = Math.max(highest, price[G.to(b)] - scaled[b]);
+					price[v] = highest - eps;
+					current[v] = G.head(v);
+					continue;
+				}
+				int w = G.to(a);
+				if (G.residual(a) > 0 && scaled[a] + price[v] - price[w] < 0) {
+					double flow = Math.min(excess[v], G.residual(a));
+					G.push(a, flow);
+					excess[v] -= flow;
+					excess[w] += flow;
+					if (excess[w] > 0 && !queued[w]) {
+						queued[w] = true;
+						queue[tail] = w;
+						tail = tail == N ? 0 : tail + 1;
+					}
+					if (excess[v] <= 0) break;
+				}
+				current[v] = G.next(a);
+			}
+		}
+		// What rounding leaves behind is not a real imbalance
+		for (int v = 0; v < N; v++)
+			excess[v] = 0;
+	}
+
+	/**
+	 * Compute the value of the max flow
+	 * @return the max flow
+	 */
+	public double value() {
+		return value;
+	}
+
+	/**
+	 * Compute the total cost of the flow, the sum over the
+	 * edges of their flow times their cost
+	 * @return the cost of the flow
+	 */
+	public double cost() {
+		return cost;
+	}
+
+	/**
+	 * Get the number of augmenting paths found by successive shortest
+	 * paths, or the number of refines done by cost scaling
+	 * @return the number of iterations
+	 */
+	public long iterations() {
+		return iterations;
+	}
+
+	/**
+	 * Compare successive shortest paths with cost scaling on the
+	 * same random network with integer capacities and costs
+	 * @param args the size of the graph and the number of edges
+	 */
+	public static void main(String[] args) {
+		int N = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+		int M = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+		Random random = new Random(N);
+		FlowGraph G = new FlowGraph(N, M);
+		for (int i = 0; i < M; i++)
+			G.addEdge(random.nextInt(N), random.nextInt(N), 1 + random.nextInt(100), random.nextInt(1000));
+		for (Method method : Method.values()) {
+			G.reset();
+			long start = System.nanoTime();
+			MinCostFlow flow = new MinCostFlow(G, 0, N - 1, method);
+			System.out.printf("%-26s %10.1f %14.1f %8d %10.2f ms%n", method, flow.value(), flow.cost(),
+					flow.iterations(), (System.nanoTime() - start) / 1e6);
+		}
+	}
+}
@@ -0,0 +1,509 @@
+package algorithms.maxflow;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import datastructures.graphs.FlowGraph;
+
+/**
+ * A multi-threaded Push-Relabel Algorithm to find the maxflow in a flow
+ * network. Work goes in rounds, and in each round every active vertex is
+ * discharged in parallel against the labels of the previous round. Under
+ * those labels an edge can only be admissible in one direction, so each pair
+ * of arcs has a single writer and needs no lock, while the flow arriving at
+ * a vertex is gathered with compare and set in an atomic array. The vertices
+ * left with excess are then relabeled in parallel from the old labels, which
+ * keeps the labeling valid no matter how the threads interleave. The global
+ * relabel is a level synchronous BFS run on the same pool.
+ *
+ * Like PushRelabel, a second phase with the source as the sink returns the
+ * excess that can't reach the sink, so the value and minimum cut agree
+ * with the sequential solvers
+ *
+ * @author An Nguyen
+ *
+ */
+public class ParallelPushRelabel {
+	private static final int GRAIN = 256;	// the fewest vertices a task splits into two
+
+	private final FlowGraph G;				// the residual graph
+	private final ForkJoinPool pool;		// the pool running the rounds
+	private final int N;					// the size of the graph
+	private final int s, t;					// the source and sink vertices
+	private double value;					// the maxflow of the graph
+	private final int[] height;				// the label of v in the current round
+	private final int[] newHeight;			// the label of v in the next round
+	private final int[] current;			// the next arc of v worth trying
+	private final boolean[] stuck;			// whether v ran out of arcs with excess left
+	private final double[] excess;			// the excess of v, only written by its own thread
+	private final AtomicLongArray added;	// the bits of the flow pushed into v this round
+	private final AtomicIntegerArray seen;	// the last round or BFS that collected v
+	private int stamp;						// the current round or BFS
+	private int sink;						// the vertex the current phase pushes toward
+	private int cap;						// the label at which a vertex stops being active
+	private long work;						// the relabels since the last global relabel
+	private final LongAdder pushes;			// the number of pushes done
+	private final LongAdder relabels;		// the number of relabels done
+	private boolean[] inCut;				// whether v is reachable from the source in the residual graph
+
+	/**
+	 * A growable list of vertices
+	 * @author An Nguyen
+	 *
+	 */
+	private static class Bag {
+		private int[] items = new int[16];	// the vertices in the bag
+		private int n;						// the number of vertices
+
+		/**
+		 * Add a vertex to the bag
+		 * @param v the vertex to add
+		 */
+		public void add(int v) {
+			if (n == items.length)
+				items = Arrays.copyOf(items, 2 * n);
+			items[n++] = v;
+		}
+
+		/**
+		 * Move every vertex of another bag into this one
+		 * @param that the bag to empty into this one
+		 * @return this bag
+		 */
+		public Bag addAll(Bag that) {
+			if (n + that.n > items.length)
+				items = Arrays.copyOf(items, Math.max(2 * items.length, n + that.n));
+			System.arraycopy(that.items, 0, items, n, that.n);
+			n += that.n;
+			return this;
+		}
+	}
+
+	/**
+	 * The discharge of a range of active vertices against the labels of
+	 * the previous round, returning every vertex that received flow
+	 * @author An Nguyen
+	 *
+	 */
+	private class Discharge extends RecursiveTask<Bag> {
+		private static final long serialVersionUID = 1L;
+		private final int[] vertices;	// the active vertices
+		private final int lo, hi;		// the range of vertices of this task
+
+		/**
+		 * Create the discharge of a range of vertices
+		 * @param vertices the active vertices
+		 * @param lo the start of the range, inclusive
+		 * @param hi the end of the range, exclusive
+		 */
+		public Discharge(int[] vertices, int lo, int hi) {
+			this.vertices = vertices;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected Bag compute() {
+			if (hi - lo > GRAIN) {
+				int mid = (lo + hi) >>> 1;
+				Discharge left = new Discharge(vertices, lo, mid);
+				left.fork();
+				Bag right = new Discharge(vertices, mid, hi).compute();
+				return left.join().addAll(right);
+			}
+			Bag received = new Bag();
+			long pushed = 0;
+			for (int i = lo; i < hi; i++) {
+				int v = vertices[i];
+				double e = excess[v];
+				int a = current[v];
+				while (a != -1) {
+					int w = G.to(a);
+					// The label is checked first, so a thread never reads an
+					// arc pair that another thread may be writing
+					if (height[v] == height[w] + 1 && G.residual(a) > 0) {
+						double flow = Math.min(e, G.residual(a));
+						G.push(a, flow);
+						e -= flow;
+						add(w, flow);
+						pushed++;
+						int old = seen.get(w);
+						if (old != stamp && seen.compareAndSet(w, old, stamp))
+							received.add(w);
+						if (e <= 0) break;
+					}
+					a = G.next(a);
+				}
+				excess[v] = e;
+				current[v] = a;
+				stuck[v] = e > 0;
+			}
+			pushes.add(pushed);
+			return received;
+		}
+	}
+
+	/**
+	 * The relabel of the vertices of a range that ran out of arcs,
+	 * lifting each to one above its lowest residual neighbor as labeled
+	 * in the previous round
+	 * @author An Nguyen
+	 *
+	 */
+	private class Relabel extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final int[] vertices;	// the active vertices
+		private final int lo, hi;		// the range of vertices of this task
+
+		/**
+		 * Create the relabel of a range of vertices
+		 * @param vertices the active vertices
+		 * @param lo the start of the range, inclusive
+		 * @param hi the end of the range, exclusive
+		 */
+		public Relabel(int[] vertices, int lo, int hi) {
+			this.vertices = vertices;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo > GRAIN) {
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new Relabel(vertices, lo, mid), new Relabel(vertices, mid, hi));
+				return;
+			}
+			long relabeled = 0;
+			for (int i = lo; i < hi; i++) {
+				int v = vertices[i];
+				if (!stuck[v]) continue;
+				int lowest = cap;
+				for (int a = G.head(v); a != -1; a = G.next(a))
+					if (G.residual(a) > 0)
+						lowest = Math.min(lowest, height[G.to(a)] + 1);
+				newHeight[v] = lowest;
+				relabeled++;
+			}
+			relabels.add(relabeled);
+		}
+	}
+
+	/**
+	 * One level of the global relabel BFS, labeling every unseen vertex
+	 * that can reach a vertex of the level through a residual arc
+	 * @author An Nguyen
+	 *
+	 */
+	private class Level extends RecursiveTask<Bag> {
+		private static final long serialVersionUID = 1L;
+		private final int[] vertices;	// the vertices of the level
+		private final int lo, hi;		// the range of vertices of this task
+		private final int level;		// the label of the vertices of the level
+
+		/**
+		 * Create the expansion of a range of a BFS level
+		 * @param vertices the vertices of the level
+		 * @param lo the start of the range, inclusive
+		 * @param hi the end of the range, exclusive
+		 * @param level the label of the vertices of the level
+		 */
+		public Level(int[] vertices, int lo, int hi, int level) {
+			this.vertices = vertices;
+			this.lo = lo;
+			this.hi = hi;
+			this.level = level;
+		}
+
+		@Override
+		protected Bag compute() {
+			if (hi - lo > GRAIN) {
+				int mid = (lo + hi) >>> 1;
+				Level left = new Level(vertices, lo, mid, level);
+				left.fork();
+				Bag right = new Level(vertices, mid, hi, level).compute();
+				return left.join().addAll(right);
+			}
+			Bag next = new Bag();
+			for (int i = lo; i < hi; i++) {
+				int v = vertices[i];
+				for (int a = G.head(v); a != -1; a = G.next(a)) {
+					int w = G.to(a);
+					int old = seen.get(w);
+					if (old != stamp && G.residual(a ^ 1) > 0 && seen.compareAndSet(w, old, stamp)) {
+						height[w] = level + 1;
+						next.add(w);
+					}
+				}
+			}
+			return next;
+		}
+	}
+
+	/**
+	 * Compute the maxflow of a flow network on the common fork join pool
+	 * @param G the residual graph, which holds the max flow afterwards
+	 * @param s the source vertex
+	 * @param t the sink vertex
+	 * @throws IllegalArgumentException if s or t is not a valid vertex, or s is t
+	 */
+	public ParallelPushRelabel(FlowGraph G, int s, int t) {
+		this(G, s, t, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Compute the maxflow of a flow network, adding it to the flow
+	 * already in the residual graph
+	 * @param G the residual graph, which holds the max flow afterwards
+	 * @param s the source vertex
+	 * @param t the sink vertex
+	 * @param pool the pool that runs the rounds
+	 * @throws IllegalArgumentException if s or t is not a valid vertex, or s is t
+	 */
+	public ParallelPushRelabel(FlowGraph G, int s, int t, ForkJoinPool pool) {
+		N = G.size();
+		if (s < 0 || s >= N || t < 0 || t >= N || s == t)
+			throw new IllegalArgumentException("Invalid source " + s + " and sink " + t +
+					" in the range [0, " + N + "]");
+		this.G = G;
+		this.pool = pool;
+		this.s = s;
+		this.t = t;
+		height = new int[N];
+		newHeight = new int[N];
+		current = new int[N];
+		stuck = new boolean[N];
+		excess = new double[N];
+		added = new AtomicLongArray(N);
+		seen = new AtomicIntegerArray(N);
+		pushes = new LongAdder();
+		relabels = new LongAdder();
+
+		// Saturate every arc out of the source
+		for (int a = G.head(s); a != -1; a = G.next(a))
+			if (G.residual(a) > 0) {
+				excess[G.to(a)] += G.residual(a);
+				excess[s] -= G.residual(a);
+				G.push(a, G.residual(a));
+			}
+		run(t, N);
+		value = excess[t];
+		// Labels measure the distance to the source now, and
+		// are bounded by 2N since every excess can reach it
+		run(s, 2 * N);
+		cut();
+	}
+
+	/**
+	 * Run rounds of parallel discharges and relabels until no vertex
+	 * below the cap has excess left
+	 * @param sink the vertex to push the excess toward
+	 * @param cap the label at which a vertex stops being active
+	 */
+	private void run(int sink, int cap) {
+		this.sink = sink;
+		this.cap = cap;
+		globalRelabel();
+		Bag active = new Bag();
+		for (int v = 0; v < N; v++)
+			if (isActive(v))
+				active.add(v);
+		while (active.n > 0) {
+			nextStamp();
+			Bag received = pool.invoke(new Discharge(active.items, 0, active.n));
+			for (int i = 0; i < received.n; i++) {
+				int w = received.items[i];
+				excess[w] += Double.longBitsToDouble(added.getAndSet(w, 0));
+			}
+			pool.invoke(new Relabel(active.items, 0, active.n));
+			for (int i = 0; i < active.n; i++) {
+				int v = active.items[i];
+				if (!stuck[v]) continue;
+				height[v] = newHeight[v];
+				current[v] = G.head(v);
+				stuck[v] = false;
+				work++;
+			}
+			if (work > N)
+				globalRelabel();
+
+			// The next round works on what is still active from this one
+			// and what just received flow, each counted once
+			nextStamp();
+			Bag next = new Bag();
+			for (int i = 0; i < active.n; i++)
+				collect(active.items[i], next);
+			for (int i = 0; i < received.n; i++)
+				collect(received.items[i], next);
+			active = next;
+		}
+	}
+
+	/**
+	 * Add a vertex to the next round if it is active and not added yet
+	 * @param v the vertex to inspect
+	 * @param next the vertices of the next round
+	 */
+	private void collect(int v, Bag next) {
+		if (seen.get(v) != stamp && isActive(v)) {
+			seen.set(v, stamp);
+			next.add(v);
+		}
+	}
+
+	/**
+	 * Determine whether a vertex has excess to discharge in this phase
+	 * @param v the vertex to inspect
+	 * @return whether v is active
+	 */
+	private boolean isActive(int v) {
+		return excess[v] > 0 && v != s && v != t && height[v] < cap;
+	}
+
+	/**
+	 * Add flow into a vertex with a compare and set, since several
+	 * threads may push into it in the same round
+	 * @param w the vertex receiving flow
+	 * @param flow the amount of flow
+	 */
+	private void add(int w, double flow) {
+		while (true) {
+			long old = added.get(w);
+			long sum = Double.doubleToLongBits(Double.longBitsToDouble(old) + flow);
+			if (added.compareAndSet(w, old, sum)) return;
+		}
+	}
+
+	/**
+	 * Reset every label to the exact distance to the sink of the phase
+	 * by a parallel BFS over the reversed residual arcs. Vertices that can't
+	 * reach it, and the other terminal, are labeled with the cap
+	 */
+	private void globalRelabel() {
+		work = 0;
+		nextStamp();
+		int other = sink == t ? s : t;
+		for (int v = 0; v < N; v++) {
+			height[v] = cap;
+			current[v] = G.head(v);
+		}
+		seen.set(other, stamp);
+		seen.set(sink, stamp);
+		height[sink] = 0;
+		Bag level = new Bag();
+		level.add(sink);
+		for (int d = 0; level.n > 0; d++)
+			level = pool.invoke(new Level(level.items, 0, level.n, d));
+	}
+
+	/**
+	 * Move to the next round or BFS stamp. The stamps are only reset in
+	 * the rare case that they run out
+	 */
+	private void nextStamp() {
+		if (stamp == Integer.MAX_VALUE) {
+			for (int v = 0; v < N; v++)
+				seen.set(v, 0);
+			stamp = 0;
+		}
+		stamp++;
+	}
+
+	/**
+	 * Find the vertices the source still reaches in the residual
+	 * graph, which form the source side of the minimum cut
+	 */
+	private void cut() {
+		inCut = new boolean[N];
+		int[] queue = new int[N];
+		int head = 0, tail = 0;
+		inCut[s] = true;
+		queue[tail++] = s;
+		while (head < tail) {
+			int v = queue[head++];
+			for (int a = G.head(v); a != -1; a = G.next(a)) {
+				int w = G.to(a);
+				if (G.residual(a) > 0 && !inCut[w]) {
+					inCut[w] = true;
+					queue[tail++] = w;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Compute the value of the max flow
+	 * @return the max flow
+	 */
+	public double value() {
+		return value;
+	}
+
+	/**
+	 * Compute whether a vertex v belongs to the source side
+	 * of the minimum cut
+	 * @param v the vertex to inspect
+	 * @return whether v belongs to the minimum cut
+	 */
+	public boolean inCut(int v) {
+		return inCut[v];
+	}
+
+	/**
+	 * Get the number of pushes done
+	 * @return the number of pushes
+	 */
+	public long pushes() {
+		return pushes.sum();
+	}
+
+	/**
+	 * Get the number of relabels done, not counting global relabels
+	 * @return the number of relabels
+	 */
+	public long relabels() {
+		return relabels.sum();
+	}
+
+	/**
+	 * Report how the solver scales with the number of threads on a
+	 * random bipartite supply network, checking every result against
+	 * the sequential PushRelabel
+	 * @param args the number of vertices on each side, the degree of
+	 * 		each supply vertex and the largest thread count
+	 */
+	public static void main(String[] args) {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+		int degree = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		Random random = new Random(n);
+		int N = 2 * n + 2, s = 2 * n, t = 2 * n + 1;
+		FlowGraph G = new FlowGraph(N, n * (degree + 2));
+		for (int v = 0; v < n; v++) {
+			G.addEdge(s, v, 1 + random.nextInt(100));
+			G.addEdge(n + v, t, 1 + random.nextInt(100));
+			for (int k = 0; k < degree; k++)
+				G.addEdge(v, n + random.nextInt(n), 1 + random.nextInt(50));
+		}
+		long start = System.nanoTime();
+		G.reset();
+		double expected = new PushRelabel(G, s, t).value();
+		System.out.printf("%-10s %12.1f %10.2f ms%n", "sequential", expected, (System.nanoTime() - start) / 1e6);
+		for (int p = 1; p <= threads; p *= 2) {
+			ForkJoinPool pool = new ForkJoinPool(p);
+			G.reset();
+			start = System.nanoTime();
+			ParallelPushRelabel flow = new ParallelPushRelabel(G, s, t, pool);
+			double time = (System.nanoTime() - start) / 1e6;
+			pool.shutdown();
+			System.out.printf("%-10s %12.1f %10.2f ms%s%n", p + " threads", flow.value(), time,
+					flow.value() == expected ? "" : "  MISMATCH");
+		}
+	}
+}
@@ -0,0 +1,380 @@
+package algorithms.maxflow;
+
+import java.util.LinkedList;
+
+import datastructures.edges.FlowEdge;
+import datastructures.graphs.FlowGraph;
+
+/**
+ * The highest label Push-Relabel Algorithm to find the maxflow in a flow
+ * network in |V|^2 sqrt|E|. Instead of augmenting whole paths, every vertex
+ * holding excess flow pushes it to neighbors one level lower, and is lifted
+ * (relabeled) when it has none. The active vertex with the highest label is
+ * always discharged first. Labels are periodically reset to the exact
+ * distance to the sink by a reverse BFS (global relabel), and once no vertex
+ * is left on some level every vertex above it is cut off from the sink at
+ * once (gap heuristic). A second pass returns the excess that couldn't
+ * reach the sink to the source, so the result is a real flow
+ *
+ * @author An Nguyen
+ *
+ */
+public class PushRelabel {
+	private final FlowGraph G;	// the residual graph
+	private final int N;		// the size of the graph
+	private final int s, t;		// the source and sink vertices
+	private double value;		// the maxflow of the graph
+	private int[] height;		// the label of v, a lower bound on its distance to the sink
+	private double[] excess;	// the flow into v that has not left it yet
+	private int[] current;		// the next arc of v worth trying
+	private int[] active;		// the first active vertex of each height, -1 if none
+	private int[] activeNext;	// the active vertex after v at the same height
+	private int[] first;		// the first vertex of each height below N, -1 if none
+	private int[] after;		// the vertex after v at the same height
+	private int[] before;		// the vertex before v at the same height, -1 if v is first
+	private int maxActive;		// no active vertex is higher than this
+	private int maxHeight;		// no vertex below N is higher than this
+	private boolean[] inCut;	// whether v is reachable from the source in the residual graph
+	private long pushes;		// the number of pushes done
+	private long relabels;		// the number of relabels done
+	private long globalRelabels;// the number of global relabels done
+	private long work;			// the relabels since the last global relabel
+
+	/**
+	 * Compute the maxflow of a flow network given as an adjacency list.
+	 * The edges are copied into a residual graph, so the flow found is
+	 * not written back into them
+	 * @param N the size of the graph
+	 * @param adj the adjacency list that represents the flow graph
+	 * @param s the source vertex
+	 * @param t the sink vertex
+	 */
+	public PushRelabel(int N, LinkedList<FlowEdge>[] adj, int s, int t) {
+		this(FlowGraph.of(N, adj), s, t);
+	}
+
+	/**
+	 * Compute the maxflow of a flow network, adding it to the flow
+	 * already in the residual graph
+	 * @param G the residual graph, which holds the max flow afterwards
+	 * @param s the source vertex
+	 * @param t the sink vertex
+	 * @throws IllegalArgumentException if s or t is not a valid vertex, or s is t
+	 */
+	public PushRelabel(FlowGraph G, int s, int t) {
+		N = G.size();
+		if (s < 0 || s >= N || t < 0 || t >= N || s == t)
+			throw new IllegalArgumentException("Invalid source " + s + " and sink " + t +
+					" in the range [0, " + N + "]");
+		this.G = G;
+		this.s = s;
+		this.t = t;
+		height = new int[N];
+		excess = new double[N];
+		current = new int[N];
+		active = new int[N];
+		activeNext = new int[N];
+		first = new int[N];
+		after = new int[N];
+		before = new int[N];
+
+		// Saturate every arc out of the source
+		for (int a = G.head(s); a != -1; a = G.next(a))
+			if (G.residual(a) > 0) {
+				excess[G.to(a)] += G.residual(a);
+				excess[s] -= G.residual(a);
+				G.push(a, G.residual(a));
+			}
+		globalRelabel();
+		while (maxActive >= 0) {
+			int v = active[maxActive];
+			if (v == -1) {
+				maxActive--;
+				continue;
+			}
+			active[maxActive] = activeNext[v];
+			if (height[v] != maxActive || excess[v] <= 0) continue;
+			discharge(v);
+			if (work > N) globalRelabel();
+		}
+		value = excess[t];
+		returnExcess();
+		cut();
+	}
+
+	/**
+	 * Push the excess of a vertex down to its neighbors, relabeling it
+	 * whenever it runs out of admissible arcs, until it has no excess left
+	 * or is found to be cut off from the sink
+	 * @param v the vertex to discharge
+	 */
+	private void discharge(int v) {
+		while (excess[v] > 0) {
+			int a = current[v];
+			if (a == -1) {
+				relabel(v);
+				if (height[v] >= N) return;
+				continue;
+			}
+			int w = G.to(a);
+			if (G.residual(a) > 0 && height[v] == height[w] + 1) {
+				double flow = Math.min(excess[v], G.residual(a));
+				if (excess[w] <= 0 && w != s && w != t)
+					activate(w);
+				G.push(a, flow);
+				excess[v] -= flow;
+				excess[w] += flow;
+				pushes++;
+				if (excess[v] <= 0) return;
+			}
+			current[v] = G.next(a);
+		}
+	}
+
+	/**
+	 * Lift a vertex to one above its lowest residual neighbor. If that
+	 * empties its old height, nothing above the gap can reach the sink
+	 * anymore, and all of it is lifted to N at once
+	 * @param v the vertex to relabel
+	 */
+	private void relabel(int v) {
+		relabels++;
+		work++;
+		int h = height[v];
+		remove(v);
+		int lowest = 2 * N;
+		for (int a = G.head(v); a != -1; a = G.next(a))
+			if (G.residual(a) > 0)
+				lowest = Math.min(lowest, height[G.to(a)] + 1);
+		if (first[h] == -1) {
+			// The gap heuristic
+			for (int g = h + 1; g <= maxHeight; g++) {
+				for (int w = first[g]; w != -1; w = after[w])
+					height[w] = N;
+				first[g] = -1;
+			}
+			maxHeight = h - 1;
+			height[v] = N;
+			return;
+		}
+		height[v] = Math.min(lowest, N);
+		current[v] = G.head(v);
+		if (height[v] < N)
+			insert(v);
+	}
+
+	/**
+	 * Reset every label to the exact distance to the sink in the residual
+	 * graph by a BFS over the reversed arcs. Vertices that can't reach
+	 * the sink are lifted to N and take no part in the rest of the first pass
+	 */
+	private void globalRelabel() {
+		globalRelabels++;
+		work = 0;
+		for (int v = 0; v < N; v++) {
+			height[v] = N;
+			current[v] = G.head(v);
+			active[v] = first[v] = -1;
+		}
+		maxActive = maxHeight = 0;
+		int[] queue = activeNext;	// not in use until the lists are rebuilt
+		int head = 0, tail = 0;
+		height[t] = 0;
+		queue[tail++] = t;
+		while (head < tail) {
+			int v = queue[head++];
+			for (int a = G.head(v); a != -1; a = G.next(a)) {
+				int w = G.to(a);
+				if (G.residual(a ^ 1) > 0 && height[w] == N && w != s) {
+					height[w] = height[v] + 1;
+					queue[tail++] = w;
+				}
+			}
+		}
+		for (int v = 0; v < N; v++) {
+			if (height[v] >= N || v == t) continue;
+			insert(v);
+			if (excess[v] > 0 && v != s)
+				activate(v);
+		}
+	}
+
+	/**
+	 * Move the excess that can't reach the sink back to the source, by
+	 * discharging the remaining active vertices in FIFO order with no bound
+	 * on their labels. Labels are measured as distances to the source here
+	 */
+	private void returnExcess() {
+		int[] queue = new int[N + 1];
+		boolean[] queued = new boolean[N];
+		int head = 0, tail = 0;
+		for (int v = 0; v < N; v++) {
+			current[v] = G.head(v);
+			if (excess[v] > 0 && v != s && v != t) {
+				queue[tail++] = v;
+				queued[v] = true;
+			}
+		}
+		if (head == tail) return;
+		// Exact distances to the source give every vertex a valid label
+		sourceLabels();
+		while (head != tail) {
+			int v = queue[head];
+			head = head == N ? 0 : head + 1;
+			queued[v] = false;
+			while (excess[v] > 0) {
+				int a = current[v];
+				if (a == -1) {
+					relabels++;
+					int lowest = Integer.MAX_VALUE;
+					for (int b = G.head(v); b != -1; b = G.next(b))
+						if (G.residual(b) > 0)
+							lowest = Math.min(lowest, height[G.to(b)] + 1);
+					height[v] = lowest;
+					current[v] = G.head(v);
+					continue;
+				}
+				int w = G.to(a);
+				if (G.residual(a) > 0 && height[v] == height[w] + 1) {
+					double flow = Math.min(excess[v], G.residual(a));
+					G.push(a, flow);
+					excess[v] -= flow;
+					excess[w] += flow;
+					pushes++;
+					if (!queued[w] && w != s && w != t) {
+						queued[w] = true;
+						queue[tail] = w;
+						tail = tail == N ? 0 : tail + 1;
+					}
+					if (excess[v] <= 0) break;
+				}
+				current[v] = G.next(a);
+			}
+		}
+	}
+
+	/**
+	 * Label every vertex by its distance to the source over the residual
+	 * arcs, ignoring the arcs into the sink since it keeps its flow
+	 */
+	private void sourceLabels() {
+		for (int v = 0; v < N; v++)
+			height[v] = Integer.MAX_VALUE - 1;
+		int[] queue = new int[N];
+		int head = 0, tail = 0;
+		height[s] = 0;
+		queue[tail++] = s;
+		while (head < tail) {
+			int v = queue[head++];
+			for (int a = G.head(v); a != -1; a = G.next(a)) {
+				int w = G.to(a);
+				if (G.residual(a ^ 1) > 0 && height[w] == Integer.MAX_VALUE - 1 && w != t) {
+					height[w] = height[v] + 1;
+					queue[tail++] = w;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Find the vertices the source still reaches in the residual
+	 * graph, which form the source side of the minimum cut
+	 */
+	private void cut() {
+		inCut = new boolean[N];
+		int[] queue = new int[N];
+		int head = 0, tail = 0;
+		inCut[s] = true;
+		queue[tail++] = s;
+		while (head < tail) {
+			int v = queue[head++];
+			for (int a = G.head(v); a != -1; a = G.next(a)) {
+				int w = G.to(a);
+				if (G.residual(a) > 0 && !inCut[w]) {
+					inCut[w] = true;
+					queue[tail++] = w;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Add a vertex to the active list of its height
+	 * @param v the vertex that gained excess
+	 */
+	private void activate(int v) {
+		if (height[v] >= N) return;
+		activeNext[v] = active[height[v]];
+		active[height[v]] = v;
+		maxActive = Math.max(maxActive, height[v]);
+	}
+
+	/**
+	 * Add a vertex to the list of all vertices at its height
+	 * @param v the vertex to add
+	 */
+	private void insert(int v) {
+		int h = height[v];
+		after[v] = first[h];
+		before[v] = -1;
+		if (first[h] != -1)
+			before[first[h]] = v;
+		first[h] = v;
+		maxHeight = Math.max(maxHeight, h);
+	}
+
+	/**
+	 * Remove a vertex from the list of all vertices at its height
+	 * @param v the vertex to remove
+	 */
+	private void remove(int v) {
+		if (before[v] != -1)
+			after[before[v]] = after[v];
+		else
+			first[height[v]] = after[v];
+		if (after[v] != -1)
+			before[after[v]] = before[v];
+	}
+
+	/**
+	 * Compute the value of the max flow
+	 * @return the max flow
+	 */
+	public double value() {
+		return value;
+	}
+
+	/**
+	 * Compute whether a vertex v belongs to the source side
+	 * of the minimum cut
+	 * @param v the vertex to inspect
+	 * @return whether v belongs to the minimum cut
+	 */
+	public boolean inCut(int v) {
+		return inCut[v];
+	}
+
+	/**
+	 * Get the number of pushes done
+	 * @return the number of pushes
+	 */
+	public long pushes() {
+		return pushes;
+	}
+
+	/**
+	 * Get the number of relabels done, not counting global relabels
+	 * @return the number of relabels
+	 */
+	public long relabels() {
+		return relabels;
+	}
+
+	/**
+	 * Get the number of global relabels done
+	 * @return the number of global relabels
+	 */
+	public long globalRelabels() {
+		return globalRelabels;
+	}
+}
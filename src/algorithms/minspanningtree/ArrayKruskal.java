@@ -0,0 +1,260 @@
+package algorithms.minspanningtree;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import datastructures.disjointset.WeightedQuickUnionFind;
+import datastructures.edges.WeightedEdge;
+
+/**
+ * Kruskal's Greedy Algorithm over an edge list kept in primitive arrays,
+ * where edge i joins from[i] and to[i] with weight weight[i]. No edge object is
+ * built and the spanning forest comes back as the ids of its edges. Edges are
+ * sorted by an LSD radix sort of their weights' IEEE-754 bit patterns, mapped
+ * so that unsigned order is numeric order, in four passes of 16 bits.
+ *
+ * Filter-Kruskal avoids sorting edges that can't matter: the edges are split
+ * around a pivot weight like quicksort, the light half is solved first, and
+ * every heavy edge whose ends are already connected is dropped before the
+ * heavy half is split in turn. On dense graphs most edges are dropped unsorted
+ *
+ * @author An Nguyen
+ *
+ */
+public class ArrayKruskal {
+	private static final int BITS = 16;				// the bits of the key sorted per pass
+	private static final int BASE = 64;				// the fewest edges filter-Kruskal splits
+
+	private final int N;							// the size of the graph
+	private final int[] from, to;					// the ends of each edge
+	private final double[] weight;					// the weight of each edge
+	private final WeightedQuickUnionFind forest;	// the components joined so far
+	private final int[] mst;						// the ids of the edges in the forest
+	private int count;								// the number of edges in the forest
+	private double value;							// the length of the forest
+	private final Random random;					// picks the pivots of filter-Kruskal
+
+	/**
+	 * The ways the edges can be processed
+	 * @author An Nguyen
+	 *
+	 */
+	public enum Method {
+		/** Radix sort every edge, then scan them in order */
+		RADIX_SORT,
+		/** Partition around pivots and drop heavy edges inside a component before sorting them */
+		FILTER
+	}
+
+	/**
+	 * Compute a minimum spanning forest of an edge list by filter-Kruskal
+	 * @param N the size of the graph
+	 * @param from the first end of each edge
+	 * @param to the second end of each edge
+	 * @param weight the weight of each edge
+	 * @throws IllegalArgumentException if the arrays have different lengths,
+	 * 		an end is not a valid vertex or a weight is not a number
+	 */
+	public ArrayKruskal(int N, int[] from, int[] to, double[] weight) {
+		this(N, from, to, weight, Method.FILTER);
+	}
+
+	/**
+	 * Compute a minimum spanning forest of an edge list. On a connected
+	 * graph this is the minimum spanning tree
+	 * @param N the size of the graph
+	 * @param from the first end of each edge
+	 * @param to the second end of each edge
+	 * @param weight the weight of each edge
+	 * @param method how the edges are processed
+	 * @throws IllegalArgumentException if the arrays have different lengths,
+	 * 		an end is not a valid vertex or a weight is not a number
+	 */
+	public ArrayKruskal(int N, int[] from, int[] to, double[] weight, Method method) {
+		int M = from.length;
+		if (to.length != M || weight.length != M)
+			throw new IllegalArgumentException("The edge arrays have lengths " + M + ", " +
+					to.length + " and " + weight.length);
+		for (int e = 0; e < M; e++) {
+			if (from[e] < 0 || from[e] >= N || to[e] < 0 || to[e] >= N)
+				throw new IllegalArgumentException("The value " + from[e] + " or " + to[e] +
+						" is not in the range [0, " + N + "]");
+			if (Double.isNaN(weight[e]))
+				throw new IllegalArgumentException("The weight of edge " + e + " is not a number");
+		}
+		this.N = N;
+		this.from = from;
+		this.to = to;
+		this.weight = weight;
+		forest = new WeightedQuickUnionFind(N);
+		mst = new int[Math.max(N - 1, 0)];
+		random = new Random(M);
+		int[] ids = new int[M];
+		for (int e = 0; e < M; e++)
+			ids[e] = e;
+		if (method == Method.FILTER)
+			filter(ids, 0, M, new int[M], new long[M], new long[M]);
+		else
+			scan(ids, 0, M, new int[M], new long[M], new long[M]);
+	}
+
+	/**
+	 * Filter-Kruskal on a range of edge ids. Small ranges are sorted and
+	 * scanned directly, others are split around a random pivot weight
+	 * @param ids the edge ids, reordered in place
+	 * @param lo the start of the range, inclusive
+	 * @param hi the end of the range, exclusive
+	 * @param aux scratch space for ids
+	 * @param keys scratch space for keys
+	 * @param auxKeys scratch space for keys
+	 */
+	private void filter(int[] ids, int lo, int hi, int[] aux, long[] keys, long[] auxKeys) {
+		if (count == mst.length) return;
+		if (hi - lo <= Math.max(BASE, N)) {
+			scan(ids, lo, hi, aux, keys, auxKeys);
+			return;
+		}
+		double pivot = weight[ids[lo + random.nextInt(hi - lo)]];
+		int i = lo, j = hi - 1;
+		while (i <= j) {
+			if (weight[ids[i]] <= pivot)
+				i++;
+			else {
+				int swap = ids[i]; ids[i] = ids[j]; ids[j] = swap;
+				j--;
+			}
+		}
+		// Every weight at most the pivot, so splitting again won't help
+		if (i == hi) {
+			scan(ids, lo, hi, aux, keys, auxKeys);
+			return;
+		}
+		filter(ids, lo, i, aux, keys, auxKeys);
+		int kept = i;
+		for (int k = i; k < hi; k++)
+			if (!forest.connected(from[ids[k]], to[ids[k]]))
+				ids[kept++] = ids[k];
+		filter(ids, i, kept, aux, keys, auxKeys);
+	}
+
+	/**
+	 * Radix sort a range of edge ids by weight and add every edge
+	 * that joins two components, lightest first
+	 * @param ids the edge ids, reordered in place
+	 * @param lo the start of the range, inclusive
+	 * @param hi the end of the range, exclusive
+	 * @param aux scratch space for ids
+	 * @param keys scratch space for keys
+	 * @param auxKeys scratch space for keys
+	 */
+	private void scan(int[] ids, int lo, int hi, int[] aux, long[] keys, long[] auxKeys) {
+		for (int k = lo; k < hi; k++)
+			keys[k] = key(weight[ids[k]]);
+		radixSort(ids, keys, lo, hi, aux, auxKeys);
+		for (int k = lo; k < hi && count < mst.length; k++) {
+			int e = ids[k];
+			if (forest.connected(from[e], to[e]))
+				continue;
+			forest.union(from[e], to[e]);
+			mst[count++] = e;
+			value += weight[e];
+		}
+	}
+
+	/**
+	 * Map a weight to a key whose unsigned order is the order of the
+	 * weights. Positive weights get their sign bit set, and negative
+	 * weights have all their bits flipped so larger magnitudes come first
+	 * @param w the weight
+	 * @return the key of the weight
+	 */
+	static long key(double w) {
+		long bits = Double.doubleToLongBits(w + 0.0);	// -0.0 sorts as 0.0
+		return bits < 0 ? ~bits : bits ^ Long.MIN_VALUE;
+	}
+
+	/**
+	 * Sort a range of ids by their keys with an LSD radix sort. A pass
+	 * is skipped when every key has the same digit in it
+	 * @param ids the ids to sort
+	 * @param keys the key of the id at the same position
+	 * @param lo the start of the range, inclusive
+	 * @param hi the end of the range, exclusive
+	 * @param aux scratch space for ids
+	 * @param auxKeys scratch space for keys
+	 */
+	static void radixSort(int[] ids, long[] keys, int lo, int hi, int[] aux, long[] auxKeys) {
+		int R = 1 << BITS;
+		int[] count = new int[R + 1];
+		for (int shift = 0; shift < 64; shift += BITS) {
+			Arrays.fill(count, 0);
+			for (int k = lo; k < hi; k++)
+				count[(int) (keys[k] >>> shift) & (R - 1)]++;
+			if (hi > lo && count[(int) (keys[lo] >>> shift) & (R - 1)] == hi - lo)
+				continue;
+			for (int r = 0, sum = lo; r < R; r++) {
+				int c = count[r];
+				count[r] = sum;
+				sum += c;
+			}
+			for (int k = lo; k < hi; k++) {
+				int pos = count[(int) (keys[k] >>> shift) & (R - 1)]++;
+				aux[pos] = ids[k];
+				auxKeys[pos] = keys[k];
+			}
+			System.arraycopy(aux, lo, ids, lo, hi - lo);
+			System.arraycopy(auxKeys, lo, keys, lo, hi - lo);
+		}
+	}
+
+	/**
+	 * Get the ids of the edges in the minimum spanning forest,
+	 * in the order they were added
+	 * @return the edge ids of the forest
+	 */
+	public int[] getMST() {
+		return Arrays.copyOf(mst, count);
+	}
+
+	/**
+	 * Compute the length of the MST
+	 * @return the length of the MST
+	 */
+	public double value() {
+		return value;
+	}
+
+	/**
+	 * Compare the running time of both methods with Kruskal
+	 * on the same random graph
+	 * @param args the size of the graph and the number of edges
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public static void main(String[] args) {
+		int N = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		int M = args.length > 1 ? Integer.parseInt(args[1]) : 2000000;
+		Random random = new Random(N);
+		int[] from = new int[M], to = new int[M];
+		double[] weight = new double[M];
+		for (int e = 0; e < M; e++) {
+			from[e] = random.nextInt(N);
+			to[e] = random.nextInt(N);
+			weight[e] = random.nextDouble();
+		}
+		for (Method method : Method.values()) {
+			long start = System.nanoTime();
+			double value = new ArrayKruskal(N, from, to, weight, method).value();
+			System.out.printf("%-12s %14.6f %10.2f ms%n", method, value, (System.nanoTime() - start) / 1e6);
+		}
+		List<WeightedEdge>[] adj = (List<WeightedEdge>[]) new List[N];
+		for (int v = 0; v < N; v++)
+			adj[v] = new LinkedList<WeightedEdge>();
+		for (int e = 0; e < M; e++)
+			adj[from[e]].add(new WeightedEdge(from[e], to[e], weight[e]));
+		long start = System.nanoTime();
+		double value = new Kruskal(N, adj).value();
+		System.out.printf("%-12s %14.6f %10.2f ms%n", "Kruskal", value, (System.nanoTime() - start) / 1e6);
+	}
+}
@@ -0,0 +1,212 @@
+package algorithms.minspanningtree;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import datastructures.edges.WeightedEdge;
+import datastructures.trees.LinkCutTree;
+
+/**
+ * A minimum spanning forest that is kept up to date while edges are added
+ * and weights decrease, in amortized log N per change. The forest is held in
+ * a link cut tree where every edge is a node of its own between its two ends,
+ * valued by its weight. A new edge between two trees is linked right away,
+ * and one inside a tree closes a cycle whose heaviest edge is found by a path
+ * query and replaced if the new edge is lighter. Lowering the weight of a
+ * forest edge keeps it, and lowering any other edge is the same as adding it
+ * again with its new weight
+ *
+ * @author An Nguyen
+ *
+ */
+public class DynamicMST {
+	private final int N;				// the size of the graph
+	private final LinkCutTree forest;	// the forest, with edge e stored as node N + e
+	private int M;						// the number of edges
+	private int[] from, to;				// the ends of each edge
+	private double[] weight;			// the weight of each edge
+	private boolean[] inMST;			// whether each edge is in the forest
+	private int size;					// the number of edges in the forest
+	private double value;				// the length of the forest
+
+	/**
+	 * Create the forest of a graph with no edges yet
+	 * @param N the size of the graph
+	 */
+	public DynamicMST(int N) {
+		this.N = N;
+		forest = new LinkCutTree(2 * N);
+		for (int v = 0; v < N; v++)
+			forest.add(Double.NEGATIVE_INFINITY);
+		from = new int[16];
+		to = new int[16];
+		weight = new double[16];
+		inMST = new boolean[16];
+	}
+
+	/**
+	 * Create the forest of a graph and keep it for later changes. An
+	 * edge is taken from the list of its tail, so it may be stored in the
+	 * lists of both its ends as usual. Edges get ids in the order they are met
+	 * @param N the size of the graph
+	 * @param adj the adjacency list of the graph
+	 */
+	public DynamicMST(int N, List<WeightedEdge>[] adj) {
+		this(N);
+		for (int v = 0; v < N; v++)
+			for (WeightedEdge e : adj[v])
+				if (e.from() == v)
+					addEdge(e.from(), e.to(), e.weight());
+	}
+
+	/**
+	 * Add an edge and bring the forest up to date
+	 * @param v one end of the edge
+	 * @param w the other end of the edge
+	 * @param weight the weight of the edge
+	 * @return the id of the edge
+	 * @throws IllegalArgumentException if v or w is not a valid vertex,
+	 * 		or weight is not a number
+	 */
+	public int addEdge(int v, int w, double weight) {
+		if (v < 0 || v >= N || w < 0 || w >= N)
+			throw new IllegalArgumentException("The value " + v + " or " + w +
+					" is not in the range [0, " + N + "]");
+		if (Double.isNaN(weight))
+			throw new IllegalArgumentException("The weight of an edge is not a number");
+		if (M == from.length) {
+			from = Arrays.copyOf(from, 2 * M);
+			to = Arrays.copyOf(to, 2 * M);
+			this.weight = Arrays.copyOf(this.weight, 2 * M);
+			inMST = Arrays.copyOf(inMST, 2 * M);
+		}
+		int e = M++;
+		from[e] = v;
+		to[e] = w;
+		this.weight[e] = weight;
+		forest.add(weight);
+		offer(e);
+		return e;
+	}
+
+	/**
+	 * Lower the weight of an edge and bring the forest up to date
+	 * @param e the id of the edge
+	 * @param weight the new weight of the edge
+	 * @throws IllegalArgumentException if e is not a valid edge or
+	 * 		weight is larger than the current weight
+	 */
+	public void decreaseWeight(int e, double weight) {
+		if (e < 0 || e >= M)
+			throw new IllegalArgumentException("The value " + e + " is not in the range [0, " + M + "]");
+		if (!(weight <= this.weight[e]))
+			throw new IllegalArgumentException(weight + " is larger than the current weight " + this.weight[e]);
+		forest.setValue(N + e, weight);
+		if (inMST[e])
+			value -= this.weight[e] - weight;
+		this.weight[e] = weight;
+		if (!inMST[e])
+			offer(e);
+	}
+
+	/**
+	 * Put an edge that is not in the forest into it if it joins two
+	 * trees or is lighter than the heaviest edge of the cycle it closes
+	 * @param e the id of the edge
+	 */
+	private void offer(int e) {
+		int v = from[e], w = to[e];
+		if (v == w) return;
+		if (forest.connected(v, w)) {
+			int heaviest = forest.pathMax(v, w);
+			if (weight[heaviest - N] <= weight[e]) return;
+			int f = heaviest - N;
+			forest.cut(from[f], heaviest);
+			forest.cut(heaviest, to[f]);
+			inMST[f] = false;
+			value -= weight[f];
+			size--;
+		}
+		forest.link(v, N + e);
+		forest.link(N + e, w);
+		inMST[e] = true;
+		value += weight[e];
+		size++;
+	}
+
+	/**
+	 * Determine whether an edge is in the forest
+	 * @param e the id of the edge
+	 * @return whether e is in the forest
+	 */
+	public boolean inMST(int e) {
+		return inMST[e];
+	}
+
+	/**
+	 * Get an iterable object that can iterate
+	 * through the edges in the mst
+	 * @return the iterable object
+	 */
+	public Iterable<WeightedEdge> getMST() {
+		List<WeightedEdge> mst = new LinkedList<WeightedEdge>();
+		for (int e = 0; e < M; e++)
+			if (inMST[e])
+				mst.add(new WeightedEdge(from[e], to[e], weight[e]));
+		return mst;
+	}
+
+	/**
+	 * Get the number of edges in the forest
+	 * @return the number of edges in the forest
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Compute the length of the MST
+	 * @return the length of the MST
+	 */
+	public double value() {
+		return value;
+	}
+
+	/**
+	 * Compare the cost of a change with rerunning ArrayKruskal on a
+	 * random graph whose edges keep getting cheaper
+	 * @param args the size of the graph, the number of edges and the
+	 * 		number of changes
+	 */
+	public static void main(String[] args) {
+		int N = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		int M = args.length > 1 ? Integer.parseInt(args[1]) : 500000;
+		int changes = args.length > 2 ? Integer.parseInt(args[2]) : 200000;
+		Random random = new Random(N);
+		int[] from = new int[M], to = new int[M];
+		double[] weight = new double[M];
+		long start = System.nanoTime();
+		DynamicMST mst = new DynamicMST(N);
+		for (int e = 0; e < M; e++) {
+			from[e] = random.nextInt(N);
+			to[e] = random.nextInt(N);
+			weight[e] = random.nextDouble();
+			mst.addEdge(from[e], to[e], weight[e]);
+		}
+		System.out.printf("%-22s %10.2f ms%n", "build", (System.nanoTime() - start) / 1e6);
+		start = System.nanoTime();
+		for (int i = 0; i < changes; i++) {
+			int e = random.nextInt(M);
+			weight[e] *= random.nextDouble();
+			mst.decreaseWeight(e, weight[e]);
+		}
+		double time = (System.nanoTime() - start) / 1e6;
+		System.out.printf("%-22s %10.4f ms%n", "change", time / changes);
+		start = System.nanoTime();
+		double expected = new ArrayKruskal(N, from, to, weight).value();
+		System.out.printf("%-22s %10.2f ms%n", "ArrayKruskal rerun", (System.nanoTime() - start) / 1e6);
+		System.out.printf("%-22s %.6f and %.6f%n", "values", mst.value(), expected);
+	}
+}
@@ -0,0 +1,443 @@
+package algorithms.minspanningtree;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import datastructures.disjointset.WeightedQuickUnionFind;
+import datastructures.edges.WeightedEdge;
+import datastructures.trees.IndexMinDoublePQ;
+
+/**
+ * Kruskal's Greedy Algorithm for edge lists too large to hold in memory.
+ * The edges are read from a binary file of 16 byte records, an int tail, an
+ * int head and a double weight, as written by DataOutputStream. The file is
+ * cut into runs that fit the buffer budget, each mapped into memory, radix
+ * sorted like ArrayKruskal and written back to a temporary file. The sorted
+ * runs are then merged through a heap with one buffer per run, and the merged
+ * stream is fed straight into a WeightedQuickUnionFind. The merge reads its
+ * small windows into reused buffers rather than mapping them, since a mapping
+ * is only released by the garbage collector and thousands of them would pile
+ * up. When there are more runs than can be merged at once they are merged in
+ * passes first.
+ * Apart from the budget, only the union-find and the forest are kept, which
+ * take O(V)
+ *
+ * @author An Nguyen
+ *
+ */
+public class ExternalKruskal {
+	private static final int RECORD = 16;			// the bytes of an edge in a file
+	private static final int SORT_BYTES = 40;		// the bytes of an edge while a run is sorted
+	private static final int FAN_IN = 256;			// the most runs merged at once
+
+	private final int N;							// the size of the graph
+	private final long budget;						// the bytes of buffers to use
+	private final WeightedQuickUnionFind forest;	// the components joined so far
+	private final int[] from, to;					// the ends of each edge of the forest
+	private final double[] weight;					// the weight of each edge of the forest
+	private int count;								// the number of edges in the forest
+	private double value;							// the length of the forest
+	private long edges;								// the number of edges in the file
+
+	/**
+	 * A sorted run file read through a window that
+	 * slides forward as the records are consumed
+	 * @author An Nguyen
+	 *
+	 */
+	private static class Input {
+		private final RandomAccessFile file;	// the run file
+		private final long size;				// the bytes of the run
+		private long offset;					// the position of the next window in the file
+		private final ByteBuffer buffer;		// the window
+		private int from, to;					// the ends of the current edge
+		private double weight;					// the weight of the current edge
+
+		/**
+		 * Open a run file
+		 * @param path the run file
+		 * @param window the bytes read at a time, a multiple of the record size
+		 * @throws IOException if the file can't be read
+		 */
+		public Input(File path, int window) throws IOException {
+			file = new RandomAccessFile(path, "r");
+			size = file.length();
+			buffer = ByteBuffer.allocate(window);
+			buffer.flip();
+		}
+
+		/**
+		 * Move to the next edge of the run
+		 * @return whether there was one
+		 * @throws IOException if the file can't be read
+		 */
+		public boolean advance() throws IOException {
+			if (!buffer.hasRemaining()) {
+				if (offset >= size) return false;
+				buffer.clear();
+				buffer.limit((int) Math.min(buffer.capacity(), size - offset));
+				while (buffer.hasRemaining())
+					if (file.getChannel().read(buffer, offset + buffer.position()) < 0)
+						throw new IOException("The run ended early");
+				offset += buffer.limit();
+				buffer.flip();
+			}
+			from = buffer.getInt();
+			to = buffer.getInt();
+			weight = buffer.getDouble();
+			return true;
+		}
+
+		/**
+		 * Close the run file
+		 * @throws IOException if the file can't be closed
+		 */
+		public void close() throws IOException {
+			file.close();
+		}
+	}
+
+	/**
+	 * A run file written through a window that
+	 * is flushed whenever it fills up
+	 * @author An Nguyen
+	 *
+	 */
+	private static class Output {
+		private final RandomAccessFile file;	// the run file
+		private long offset;					// the position of the window in the file
+		private final ByteBuffer buffer;		// the window
+
+		/**
+		 * Create an empty run file
+		 * @param path the run file
+		 * @param window the bytes written at a time, a multiple of the record size
+		 * @throws IOException if the file can't be written
+		 */
+		public Output(File path, int window) throws IOException {
+			file = new RandomAccessFile(path, "rw");
+			file.setLength(0);
+			buffer = ByteBuffer.allocate(window);
+		}
+
+		/**
+		 * Add an edge to the run
+		 * @param from the tail of the edge
+		 * @param to the head of the edge
+		 * @param weight the weight of the edge
+		 * @throws IOException if the file can't be written
+		 */
+		public void write(int from, int to, double weight) throws IOException {
+			if (!buffer.hasRemaining())
+				flush();
+			buffer.putInt(from);
+			buffer.putInt(to);
+			buffer.putDouble(weight);
+		}
+
+		/**
+		 * Write out the window
+		 * @throws IOException if the file can't be written
+		 */
+		private void flush() throws IOException {
+			buffer.flip();
+			while (buffer.hasRemaining())
+				offset += file.getChannel().write(buffer, offset);
+			buffer.clear();
+		}
+
+		/**
+		 * Write out what is left and close the run file
+		 * @throws IOException if the file can't be written or closed
+		 */
+		public void close() throws IOException {
+			try {
+				flush();
+			} finally {
+				file.close();
+			}
+		}
+	}
+
+	/**
+	 * Compute the minimum spanning forest of the edges
+	 * in a file with a 64 MB buffer budget
+	 * @param N the size of the graph
+	 * @param file the binary file of edges
+	 * @throws IOException if the file can't be read or the temporary runs
+	 * 		can't be written
+	 * @throws IllegalArgumentException if an edge has an end that is not a
+	 * 		valid vertex or a weight that is not a number
+	 */
+	public ExternalKruskal(int N, String file) throws IOException {
+		this(N, file, 64L << 20);
+	}
+
+	/**
+	 * Compute the minimum spanning forest of the edges in a file.
+	 * On a connected graph this is the minimum spanning tree
+	 * @param N the size of the graph
+	 * @param file the binary file of edges
+	 * @param budget the bytes of buffers to use for sorting and merging
+	 * @throws IOException if the file can't be read or the temporary runs
+	 * 		can't be written
+	 * @throws IllegalArgumentException if the budget is under 64 KB, or an
+	 * 		edge has an end that is not a valid vertex or a weight that is
+	 * 		not a number
+	 */
+	public ExternalKruskal(int N, String file, long budget) throws IOException {
+		if (budget < 1 << 16)
+			throw new IllegalArgumentException("The budget " + budget + " is under 64 KB");
+		this.N = N;
+		this.budget = budget;
+		forest = new WeightedQuickUnionFind(N);
+		from = new int[Math.max(N - 1, 0)];
+		to = new int[from.length];
+		weight = new double[from.length];
+
+		// Every run is listed here as soon as it is created, so a failed pass
+		// still deletes the runs it was writing along with the earlier ones
+		List<File> created = new ArrayList<File>();
+		try {
+			sortRuns(file, created);
+			List<File> runs = new ArrayList<File>(created);
+			while (runs.size() > FAN_IN) {
+				List<File> merged = new ArrayList<File>();
+				for (int i = 0; i < runs.size(); i += FAN_IN) {
+					List<File> group = runs.subList(i, Math.min(runs.size(), i + FAN_IN));
+					File run = File.createTempFile("kruskal", ".run");
+					created.add(run);
+					merged.add(run);
+					merge(group, run);
+					for (File f : group)
+						f.delete();
+				}
+				runs = merged;
+			}
+			if (!runs.isEmpty())
+				merge(runs, null);
+		} finally {
+			for (File run : created)
+				run.delete();
+		}
+	}
+
+	/**
+	 * Cut the file into runs that fit the budget and sort each by weight.
+	 * If the whole file fits in one run, its edges go straight to the forest
+	 * @param file the binary file of edges
+	 * @param runs the list the sorted run files are added to
+	 * @throws IOException if the file can't be read or a run can't be written
+	 */
+	private void sortRuns(String file, List<File> runs) throws IOException {
+		try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+			long size = input.length();
+			if (size % RECORD != 0)
+				throw new IOException("The file " + file + " of " + size + " bytes is not made of " +
+						RECORD + " byte edges");
+			edges = size / RECORD;
+			int capacity = (int) Math.min(edges, Math.min(budget / SORT_BYTES, Integer.MAX_VALUE / RECORD));
+			int[] ends = new int[2 * capacity];
+			double[] weights = new double[capacity];
+			int[] ids = new int[capacity], aux = new int[capacity];
+			long[] keys = new long[capacity], auxKeys = new long[capacity];
+			for (long start = 0; start < edges; start += capacity) {
+				int n = (int) Math.min(capacity, edges - start);
+				MappedByteBuffer buffer = input.getChannel().map(FileChannel.MapMode.READ_ONLY,
+						start * RECORD, (long) n * RECORD);
+				for (int i = 0; i < n; i++) {
+					int v = buffer.getInt(), w = buffer.getInt();
+					double x = buffer.getDouble();
+					if (v < 0 || v >= N || w < 0 || w >= N)
+						throw new IllegalArgumentException("The value " + v + " or " + w +
+								" is not in the range [0, " + N + "]");
+					if (Double.isNaN(x))
+						throw new IllegalArgumentException("The weight of edge " + (start + i) + " is not a number");
+					ends[2 * i] = v;
+					ends[2 * i + 1] = w;
+					weights[i] = x;
+					ids[i] = i;
+					keys[i] = ArrayKruskal.key(x);
+				}
+				ArrayKruskal.radixSort(ids, keys, 0, n, aux, auxKeys);
+				if (n == edges) {
+					for (int i = 0; i < n && count < from.length; i++)
+						add(ends[2 * ids[i]], ends[2 * ids[i] + 1], weights[ids[i]]);
+					return;
+				}
+				File run = File.createTempFile("kruskal", ".run");
+				runs.add(run);
+				Output out = new Output(run, window(FAN_IN));
+				try {
+					for (int i = 0; i < n; i++)
+						out.write(ends[2 * ids[i]], ends[2 * ids[i] + 1], weights[ids[i]]);
+				} finally {
+					out.close();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Merge sorted runs by weight, into another run or into the forest
+	 * @param group the runs to merge
+	 * @param target the run to write, or null to feed the forest
+	 * @throws IOException if a run can't be read or written
+	 */
+	private void merge(List<File> group, File target) throws IOException {
+		int k = group.size();
+		int window = window(k + 1);
+		Input[] inputs = new Input[k];
+		IndexMinDoublePQ pq = new IndexMinDoublePQ(k);
+		Output out = null;
+		try {
+			for (int r = 0; r < k; r++) {
+				inputs[r] = new Input(group.get(r), window);
+				if (inputs[r].advance())
+					pq.insert(r, inputs[r].weight);
+			}
+			if (target != null)
+				out = new Output(target, window);
+			while (!pq.isEmpty() && (target != null || count < from.length)) {
+				int r = pq.dequeue();
+				Input in = inputs[r];
+				if (target != null)
+					out.write(in.from, in.to, in.weight);
+				else
+					add(in.from, in.to, in.weight);
+				if (in.advance())
+					pq.insert(r, in.weight);
+			}
+		} finally {
+			for (Input in : inputs)
+				if (in != null)
+					in.close();
+			if (out != null)
+				out.close();
+		}
+	}
+
+	/**
+	 * Split the budget into windows
+	 * @param windows the number of windows open at once
+	 * @return the bytes of a window, a whole number of records
+	 */
+	private int window(int windows) {
+		long bytes = budget / windows / RECORD * RECORD;
+		return (int) Math.max(RECORD, Math.min(bytes, Integer.MAX_VALUE / RECORD * RECORD));
+	}
+
+	/**
+	 * Add the next lightest edge to the forest if it joins two trees
+	 * @param v one end of the edge
+	 * @param w the other end of the edge
+	 * @param x the weight of the edge
+	 */
+	private void add(int v, int w, double x) {
+		if (forest.connected(v, w)) return;
+		forest.union(v, w);
+		from[count] = v;
+		to[count] = w;
+		weight[count] = x;
+		count++;
+		value += x;
+	}
+
+	/**
+	 * Write an edge list to a binary file that ExternalKruskal can read
+	 * @param file the file to write
+	 * @param from the first end of each edge
+	 * @param to the second end of each edge
+	 * @param weight the weight of each edge
+	 * @throws IOException if the file can't be written
+	 */
+	public static void write(String file, int[] from, int[] to, double[] weight) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			for (int e = 0; e < from.length; e++) {
+				out.writeInt(from[e]);
+				out.writeInt(to[e]);
+				out.writeDouble(weight[e]);
+			}
+		}
+	}
+
+	/**
+	 * Get an iterable object that can iterate
+	 * through the edges in the mst
+	 * @return the iterable object
+	 */
+	public Iterable<WeightedEdge> getMST() {
+		List<WeightedEdge> mst = new LinkedList<WeightedEdge>();
+		for (int i = 0; i < count; i++)
+			mst.add(new WeightedEdge(from[i], to[i], weight[i]));
+		return mst;
+	}
+
+	/**
+	 * Compute the length of the MST
+	 * @return the length of the MST
+	 */
+	public double value() {
+		return value;
+	}
+
+	/**
+	 * Get the number of edges in the forest
+	 * @return the number of edges in the forest
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * Get the number of edges read from the file
+	 * @return the number of edges in the file
+	 */
+	public long edges() {
+		return edges;
+	}
+
+	/**
+	 * Compare ExternalKruskal under a small budget with
+	 * ArrayKruskal in memory on the same random graph
+	 * @param args the size of the graph, the number of edges
+	 * 		and the budget in MB
+	 * @throws IOException if the temporary edge file can't be used
+	 */
+	public static void main(String[] args) throws IOException {
+		int N = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		int M = args.length > 1 ? Integer.parseInt(args[1]) : 4000000;
+		long budget = (args.length > 2 ? Long.parseLong(args[2]) : 8) << 20;
+		Random random = new Random(N);
+		int[] from = new int[M], to = new int[M];
+		double[] weight = new double[M];
+		for (int e = 0; e < M; e++) {
+			from[e] = random.nextInt(N);
+			to[e] = random.nextInt(N);
+			weight[e] = random.nextDouble();
+		}
+		File file = File.createTempFile("edges", ".bin");
+		try {
+			write(file.getPath(), from, to, weight);
+			long start = System.nanoTime();
+			double value = new ExternalKruskal(N, file.getPath(), budget).value();
+			System.out.printf("%-14s %14.6f %10.2f ms%n", "ExternalKruskal", value, (System.nanoTime() - start) / 1e6);
+			start = System.nanoTime();
+			value = new ArrayKruskal(N, from, to, weight).value();
+			System.out.printf("%-14s %14.6f %10.2f ms%n", "ArrayKruskal", value, (System.nanoTime() - start) / 1e6);
+		} finally {
+			file.delete();
+		}
+	}
+}
@@ -7,6 +7,7 @@ import java.util.TreeSet;
 
 import datastructures.disjointset.WeightedQuickUnionFind;
 import datastructures.edges.WeightedEdge;
+import datastructures.graphs.CSRGraph;
 
 /**
  * Kruskal's Greedy Algorithm to find the minimum
@@ -45,6 +46,65 @@ public class Kruskal {
 		}
 	}
 	
+	/**
+	 * Create a Kruskal's algo object over a compressed graph. The arcs are
+	 * sorted as an array of arc indices, so only the edges that end up
+	 * in the mst are materialized as objects
+	 * @param G the graph in compressed sparse row form
+	 */
+	public Kruskal(CSRGraph G) {
+		int N = G.size(), M = G.edges();
+		mst = new TreeSet<WeightedEdge>();
+		int[] from = new int[M];
+		int[] order = new int[M];
+		for (int v = 0; v < N; v++) 
+			for (int e = G.begin(v); e < G.end(v); e++) 
+				from[e] = v;
+		for (int e = 0; e < M; e++) 
+			order[e] = e;
+		sort(G, order, 0, M - 1);
+		WeightedQuickUnionFind forest = new WeightedQuickUnionFind(N);
+		for (int i = 0; i < M && mst.size() < N - 1; i++) {
+			int e = order[i];
+			int v = from[e]; int w = G.target(e);
+			if (forest.connected(v, w))
+				continue;
+			forest.union(v, w);
+			mst.add(new WeightedEdge(v, w, G.weight(e)));
+			value += G.weight(e);
+		}
+	}
+	
+	/**
+	 * Quicksort a range of arc indices by the weight of their arcs
+	 * @param G the graph the arcs belong to
+	 * @param order the arc indices to sort
+	 * @param lo the start of the range, inclusive
+	 * @param hi the end of the range, inclusive
+	 */
+	private static void sort(CSRGraph G, int[] order, int lo, int hi) {
+		while (lo < hi) {
+			double pivot = G.weight(order[(lo + hi) >>> 1]);
+			int i = lo, j = hi;
+			while (i <= j) {
+				while (G.weight(order[i]) < pivot) i++;
+				while (G.weight(order[j]) > pivot) j--;
+				if (i <= j) {
+					int swap = order[i]; order[i] = order[j]; order[j] = swap;
+					i++; j--;
+				}
+			}
+			// Recurse into the smaller half to bound the stack depth
+			if (j - lo < hi - i) {
+				sort(G, order, lo, j);
+				lo = i;
+			} else {
+				sort(G, order, i, hi);
+				hi = j;
+			}
+		}
+	}
+	
 	/**
 	 * Get an iterable object that can iterate
 	 * through the edges in the mst
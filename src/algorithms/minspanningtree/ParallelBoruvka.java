@@ -0,0 +1,337 @@
+package algorithms.minspanningtree;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import datastructures.disjointset.ConcurrentUnionFind;
+
+/**
+ * Boruvka's Algorithm to find a minimum spanning forest in |E|log|V| work,
+ * with every step of a round run in parallel on a fork join pool. Each round
+ * finds the lightest edge leaving every component, joins the components along
+ * those edges in a concurrent union-find, and drops the edges that now lie
+ * inside a component while relabeling the ends of the rest with their new
+ * components, so the next round reads its edges in order without any find.
+ * Ties are broken by edge id, so the chosen edges never form a cycle, and
+ * every component of the graph ends up with its own tree. The edges are given
+ * as primitive arrays like ArrayKruskal, where edge i joins from[i] and to[i]
+ * with weight weight[i]
+ *
+ * @author An Nguyen
+ *
+ */
+public class ParallelBoruvka {
+	private static final int GRAIN = 1 << 13;	// the fewest items a task splits into two
+	private static final long INFINITY = Double.doubleToLongBits(Double.POSITIVE_INFINITY);
+
+	private final ConcurrentUnionFind forest;	// the components joined so far
+	private final AtomicIntegerArray best;		// the position of the lightest edge leaving
+												// component c, -1 if none
+	private final AtomicLongArray bound;		// the bits of the weight of some edge that was the
+												// lightest leaving c, never below the real one
+	private final int[] mst;					// the ids of the edges in the forest
+	private final AtomicInteger count;			// the number of edges in the forest
+	private int[] u, v;							// the components at the ends of each remaining edge
+	private double[] w;							// the weight of each remaining edge
+	private int[] id;							// the id of each remaining edge
+	private int rounds;							// the number of rounds done
+	private double value;						// the length of the forest
+
+	/**
+	 * Find the lightest edge leaving the components of both ends
+	 * of every edge in a range
+	 * @author An Nguyen
+	 *
+	 */
+	private class Lightest extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final int lo, hi;	// the range of edges of this task
+
+		/**
+		 * Create the search of a range of edges
+		 * @param lo the start of the range, inclusive
+		 * @param hi the end of the range, exclusive
+		 */
+		public Lightest(int lo, int hi) {
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo > GRAIN) {
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new Lightest(lo, mid), new Lightest(mid, hi));
+				return;
+			}
+			for (int k = lo; k < hi; k++) {
+				offer(u[k], k);
+				offer(v[k], k);
+			}
+		}
+	}
+
+	/**
+	 * Join every component of a range along its lightest edge
+	 * @author An Nguyen
+	 *
+	 */
+	private class Contract extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final int lo, hi;	// the range of vertices of this task
+
+		/**
+		 * Create the contraction of a range of vertices
+		 * @param lo the start of the range, inclusive
+		 * @param hi the end of the range, exclusive
+		 */
+		public Contract(int lo, int hi) {
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo > GRAIN) {
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new Contract(lo, mid), new Contract(mid, hi));
+				return;
+			}
+			for (int c = lo; c < hi; c++) {
+				int k = best.get(c);
+				if (k == -1) continue;
+				best.set(c, -1);
+				bound.set(c, INFINITY);
+				// The components at both ends may pick the same edge
+				if (forest.union(u[k], v[k]))
+					mst[count.getAndIncrement()] = id[k];
+			}
+		}
+	}
+
+	/**
+	 * Drop the edges of a range of blocks that now lie inside a component,
+	 * keeping the others at the front of their own block with their ends
+	 * relabeled by their components
+	 * @author An Nguyen
+	 *
+	 */
+	private class Filter extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final int[] kept;	// the number of edges kept in each block
+		private final int lo, hi;	// the range of blocks of this task
+		private final int M;		// the number of edges
+
+		/**
+		 * Create the filter of a range of blocks
+		 * @param kept the number of edges kept in each block
+		 * @param lo the first block, inclusive
+		 * @param hi the last block, exclusive
+		 * @param M the number of edges
+		 */
+		public Filter(int[] kept, int lo, int hi, int M) {
+			this.kept = kept;
+			this.lo = lo;
+			this.hi = hi;
+			this.M = M;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo > 1) {
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new Filter(kept, lo, mid, M), new Filter(kept, mid, hi, M));
+				return;
+			}
+			int start = lo * GRAIN, end = Math.min(M, start + GRAIN), n = start;
+			for (int k = start; k < end; k++) {
+				int a = forest.find(u[k]), b = forest.find(v[k]);
+				if (a == b) continue;
+				u[n] = a;
+				v[n] = b;
+				w[n] = w[k];
+				id[n] = id[k];
+				n++;
+			}
+			kept[lo] = n - start;
+		}
+	}
+
+	/**
+	 * Compute a minimum spanning forest of an edge list on the
+	 * common fork join pool
+	 * @param N the size of the graph
+	 * @param from the first end of each edge
+	 * @param to the second end of each edge
+	 * @param weight the weight of each edge
+	 * @throws IllegalArgumentException if the arrays have different lengths,
+	 * 		an end is not a valid vertex or a weight is not a number
+	 */
+	public ParallelBoruvka(int N, int[] from, int[] to, double[] weight) {
+		this(N, from, to, weight, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Compute a minimum spanning forest of an edge list. On a connected
+	 * graph this is the minimum spanning tree
+	 * @param N the size of the graph
+	 * @param from the first end of each edge
+	 * @param to the second end of each edge
+	 * @param weight the weight of each edge
+	 * @param pool the pool that runs the rounds
+	 * @throws IllegalArgumentException if the arrays have different lengths,
+	 * 		an end is not a valid vertex or a weight is not a number
+	 */
+	public ParallelBoruvka(int N, int[] from, int[] to, double[] weight, ForkJoinPool pool) {
+		int M = from.length;
+		if (to.length != M || weight.length != M)
+			throw new IllegalArgumentException("The edge arrays have lengths " + M + ", " +
+					to.length + " and " + weight.length);
+		forest = new ConcurrentUnionFind(N);
+		best = new AtomicIntegerArray(N);
+		bound = new AtomicLongArray(N);
+		mst = new int[Math.max(N - 1, 0)];
+		count = new AtomicInteger();
+		int live = 0;
+		for (int e = 0; e < M; e++)
+			if (from[e] != to[e])
+				live++;
+		u = new int[live];
+		v = new int[live];
+		w = new double[live];
+		id = new int[live];
+		live = 0;
+		for (int e = 0; e < M; e++) {
+			if (from[e] < 0 || from[e] >= N || to[e] < 0 || to[e] >= N)
+				throw new IllegalArgumentException("The value " + from[e] + " or " + to[e] +
+						" is not in the range [0, " + N + "]");
+			if (Double.isNaN(weight[e]))
+				throw new IllegalArgumentException("The weight of edge " + e + " is not a number");
+			if (from[e] == to[e]) continue;
+			u[live] = from[e];
+			v[live] = to[e];
+			w[live] = weight[e];
+			id[live] = e;
+			live++;
+		}
+		for (int c = 0; c < N; c++) {
+			best.set(c, -1);
+			bound.set(c, INFINITY);
+		}
+
+		int[] kept = new int[(live + GRAIN - 1) / GRAIN];
+		while (live > 0) {
+			rounds++;
+			pool.invoke(new Lightest(0, live));
+			pool.invoke(new Contract(0, N));
+			int blocks = (live + GRAIN - 1) / GRAIN;
+			pool.invoke(new Filter(kept, 0, blocks, live));
+			// Move the edges each block kept next to each other
+			int n = kept[0];
+			for (int b = 1; b < blocks; b++) {
+				System.arraycopy(u, b * GRAIN, u, n, kept[b]);
+				System.arraycopy(v, b * GRAIN, v, n, kept[b]);
+				System.arraycopy(w, b * GRAIN, w, n, kept[b]);
+				System.arraycopy(id, b * GRAIN, id, n, kept[b]);
+				n += kept[b];
+			}
+			live = n;
+		}
+		u = v = id = null;
+		w = null;
+		for (int i = 0; i < count.get(); i++)
+			value += weight[mst[i]];
+	}
+
+	/**
+	 * Make an edge the lightest leaving a component if it beats the
+	 * current one, breaking ties between weights by edge id. Most edges
+	 * lose to the bound of the component without looking up the weight
+	 * of its current edge, which is far away in memory
+	 * @param c the root of the component
+	 * @param k the position of the edge leaving it
+	 */
+	private void offer(int c, int k) {
+		if (w[k] > Double.longBitsToDouble(bound.get(c)))
+			return;
+		while (true) {
+			int cur = best.get(c);
+			if (cur != -1 && (w[cur] < w[k] || (w[cur] == w[k] && id[cur] < id[k])))
+				return;
+			if (best.compareAndSet(c, cur, k)) {
+				// A race may leave the bound above the best weight, which is safe
+				bound.set(c, Double.doubleToLongBits(w[k]));
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Get the ids of the edges in the minimum spanning forest
+	 * @return the edge ids of the forest
+	 */
+	public int[] getMST() {
+		return Arrays.copyOf(mst, count.get());
+	}
+
+	/**
+	 * Compute the length of the MST
+	 * @return the length of the MST
+	 */
+	public double value() {
+		return value;
+	}
+
+	/**
+	 * Get the number of trees in the forest, one per
+	 * component of the graph
+	 * @return the number of trees
+	 */
+	public int trees() {
+		return forest.length() - count.get();
+	}
+
+	/**
+	 * Get the number of rounds done, at most log N
+	 * @return the number of rounds
+	 */
+	public int rounds() {
+		return rounds;
+	}
+
+	/**
+	 * Report how the forest scales with the number of threads on a
+	 * random graph, next to ArrayKruskal
+	 * @param args the size of the graph, the number of edges and the
+	 * 		largest thread count
+	 */
+	public static void main(String[] args) {
+		int N = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int M = args.length > 1 ? Integer.parseInt(args[1]) : 10000000;
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		Random random = new Random(N);
+		int[] from = new int[M], to = new int[M];
+		double[] weight = new double[M];
+		for (int e = 0; e < M; e++) {
+			from[e] = random.nextInt(N);
+			to[e] = random.nextInt(N);
+			weight[e] = random.nextDouble();
+		}
+		long start = System.nanoTime();
+		double expected = new ArrayKruskal(N, from, to, weight).value();
+		System.out.printf("%-12s %14.6f %10.2f ms%n", "ArrayKruskal", expected, (System.nanoTime() - start) / 1e6);
+		for (int p = 1; p <= threads; p *= 2) {
+			ForkJoinPool pool = new ForkJoinPool(p);
+			start = System.nanoTime();
+			ParallelBoruvka forest = new ParallelBoruvka(N, from, to, weight, pool);
+			System.out.printf("%-12s %14.6f %10.2f ms %3d rounds %8d trees%n", p + " threads", forest.value(),
+					(System.nanoTime() - start) / 1e6, forest.rounds(), forest.trees());
+			pool.shutdown();
+		}
+	}
+}
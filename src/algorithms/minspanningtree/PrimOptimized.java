@@ -5,6 +5,7 @@ import java.util.Set;
 import java.util.TreeSet;
 
 import datastructures.edges.WeightedEdge;
+import datastructures.graphs.CSRGraph;
 import datastructures.trees.IndexMinPQ;
 
 /**
@@ -43,6 +44,29 @@ public class PrimOptimized {
 		}
 	}
 	
+	/**
+	 * Create a Prim's Object over a compressed graph. The queue is keyed by
+	 * the weight of the lightest arc into each vertex, and the arc itself is
+	 * only turned into an edge object once it joins the mst
+	 * @param G the graph in compressed sparse row form
+	 */
+	public PrimOptimized(CSRGraph G) {
+		int N = G.size();
+		mst = new TreeSet<WeightedEdge>();
+		IndexMinPQ<Double> pq = new IndexMinPQ<Double>(N);
+		int[] edgeFrom = new int[N];	// the tail of the lightest arc into a vertex
+		boolean[] visited = new boolean[N];
+		if (N > 0) explore(G, 0, visited, pq, edgeFrom);
+		
+		while (!pq.isEmpty() && mst.size() < N - 1) {
+			int w = pq.minIndex();
+			double weight = pq.dequeue();
+			mst.add(new WeightedEdge(edgeFrom[w], w, weight));
+			value += weight;
+			explore(G, w, visited, pq, edgeFrom);
+		}
+	}
+	
 	/**
 	 * Explore a vertex and update its neighborhooad
 	 * @param adj the adjacency list representing the graph
@@ -60,6 +84,26 @@ public class PrimOptimized {
 		}
 	}
 	
+	/**
+	 * Explore a vertex of a compressed graph and update its neighborhood
+	 * @param G the graph in compressed sparse row form
+	 * @param v the vertex to explore
+	 * @param visited an array storing which vertices are visited
+	 * @param pq the priority queue storing the weight of the lightest arc into a vertex
+	 * @param edgeFrom an array storing the tail of the lightest arc into a vertex
+	 */
+	private void explore(CSRGraph G, int v, boolean[] visited, IndexMinPQ<Double> pq, int[] edgeFrom) {
+		visited[v] = true;
+		for (int e = G.begin(v); e < G.end(v); e++) {
+			int w = G.target(e);
+			if (visited[w]) continue;
+			if (pq.contains(w) && pq.keyOf(w) <= G.weight(e)) continue;
+			if (!pq.insert(w, G.weight(e)))
+				pq.decreaseKey(w, G.weight(e));
+			edgeFrom[w] = v;
+		}
+	}
+	
 	/**
 	 * Get an iterable object that can iterate
 	 * through the edges in the mst
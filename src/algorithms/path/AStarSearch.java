@@ -0,0 +1,140 @@
+package algorithms.path;
+
+import java.util.LinkedList;
+
+import datastructures.graphs.CSRGraph;
+import datastructures.trees.IndexMinDoublePQ;
+
+/**
+ * A* search for point to point queries, guided by the landmark lower
+ * bounds (ALT). It is the relaxation loop of DjikstraSearch with every
+ * vertex keyed by its distance plus a lower bound on what is left to the
+ * target, so the search leans toward the target and settles far fewer
+ * vertices. The landmark bounds obey the triangle inequality, which keeps
+ * a settled vertex final just like in Dijkstra's algorithm
+ *
+ * @author An Nguyen
+ *
+ */
+public class AStarSearch implements PathQuery {
+	private final CSRGraph G;			// the graph to search
+	private final Landmarks landmarks;	// the lower bounds toward the target
+	private final double[] distTo;		// the distance from the source to v
+	private final double[] bound;		// the lower bound from v to the target
+	private final int[] edgeTo;			// the vertex before v on the shortest path to v
+	private final int[] version;		// the query that last reached v
+	private final IndexMinDoublePQ pq;	// the frontier, keyed by distance plus bound
+	private int stamp;					// the current query, 0 if none has been run
+	private int target;					// the target of the last query
+	private int settled;				// the number of vertices settled by the last query
+
+	/**
+	 * Prepare an A* search over a graph
+	 * @param G the graph in compressed sparse row form
+	 * @param landmarks the landmark tables computed for G
+	 * @throws IllegalArgumentException if the landmarks belong to a graph
+	 * 		of another size
+	 */
+	public AStarSearch(CSRGraph G, Landmarks landmarks) {
+		if (G.size() != landmarks.size())
+			throw new IllegalArgumentException("The landmarks cover " + landmarks.size() +
+					" vertices instead of " + G.size());
+		this.G = G;
+		this.landmarks = landmarks;
+		distTo = new double[G.size()];
+		bound = new double[G.size()];
+		edgeTo = new int[G.size()];
+		version = new int[G.size()];
+		pq = new IndexMinDoublePQ(G.size());
+		stamp = 0;
+	}
+
+	@Override
+	public double query(int s, int t) {
+		validate(s);
+		validate(t);
+		nextStamp();
+		target = t;
+		settled = 0;
+		pq.clear();
+		if (!reach(s, 0, -1))
+			return Double.POSITIVE_INFINITY;
+		pq.insert(s, bound[s]);
+		while (!pq.isEmpty()) {
+			int v = pq.dequeue();
+			settled++;
+			if (v == t) return distTo[t];
+			double dist = distTo[v];
+			for (int e = G.begin(v); e < G.end(v); e++) {
+				int w = G.target(e);
+				double d = dist + G.weight(e);
+				if (version[w] != stamp) {
+					// A vertex that can't reach the target is never queued
+					if (reach(w, d, v))
+						pq.insert(w, d + bound[w]);
+				} else if (d < distTo[w] && pq.contains(w)) {
+					distTo[w] = d;
+					edgeTo[w] = v;
+					pq.decreaseKey(w, d + bound[w]);
+				}
+			}
+		}
+		return Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Record the first path to a vertex in the current query
+	 * and compute its lower bound to the target
+	 * @param v the vertex reached
+	 * @param dist the length of the path
+	 * @param from the vertex before v on the path, -1 if v is the source
+	 * @return whether the target may be reachable from v
+	 */
+	private boolean reach(int v, double dist, int from) {
+		version[v] = stamp;
+		distTo[v] = dist;
+		edgeTo[v] = from;
+		bound[v] = landmarks.lowerBound(v, target);
+		return bound[v] != Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Move to the next query stamp. The stamps are only reset in the
+	 * rare case that they run out
+	 */
+	private void nextStamp() {
+		if (stamp == Integer.MAX_VALUE) {
+			for (int v = 0; v < version.length; v++)
+				version[v] = 0;
+			stamp = 0;
+		}
+		stamp++;
+	}
+
+	@Override
+	public Iterable<Integer> path() {
+		if (stamp == 0)
+			throw new IllegalStateException("No query has been run yet");
+		LinkedList<Integer> path = new LinkedList<Integer>();
+		if (version[target] != stamp || pq.contains(target))
+			return path;
+		for (int v = target; v != -1; v = edgeTo[v])
+			path.addFirst(v);
+		return path;
+	}
+
+	@Override
+	public int settled() {
+		return settled;
+	}
+
+	/**
+	 * Check that a vertex belongs to the graph
+	 * @param v the vertex to check
+	 * @throws IllegalArgumentException if v is not a valid vertex
+	 */
+	private void validate(int v) {
+		if (v < 0 || v >= distTo.length)
+			throw new IllegalArgumentException(v + " is not in the range [0, " + distTo.length + "]");
+	}
+}
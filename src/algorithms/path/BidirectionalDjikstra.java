@@ -0,0 +1,213 @@
+package algorithms.path;
+
+import java.util.LinkedList;
+
+import datastructures.graphs.CSRGraph;
+import datastructures.trees.IndexMinDoublePQ;
+
+/**
+ * Bidirectional Dijkstra's algorithm for point to point queries. One
+ * search grows forward from the source over the graph while another grows
+ * backward from the target over the reverse graph, and the query stops once
+ * the two frontiers together can't beat the best path seen where they meet.
+ * On long routes the two balls settle far fewer vertices than a single
+ * ball reaching out to the target
+ *
+ * @author An Nguyen
+ *
+ */
+public class BidirectionalDjikstra implements PathQuery {
+	private final Frontier forward;		// the search from the source
+	private final Frontier backward;	// the search from the target
+	private final int N;				// the size of the graph
+	private int stamp;					// the current query, 0 if none has been run
+	private double best;				// the length of the best path found so far
+	private int meet;					// the vertex where the best path crosses, -1 if none
+	private int settled;				// the number of vertices settled by the last query
+
+	/**
+	 * The state of one direction of the search, which is stamped
+	 * with the query that last wrote it like DjikstraSearch
+	 * @author An Nguyen
+	 *
+	 */
+	private class Frontier {
+		private final CSRGraph G;			// the graph this side searches
+		private final double[] distTo;		// the distance from this side's root
+		private final int[] edgeTo;			// the vertex before v on this side's path to v
+		private final int[] version;		// the query that last reached v
+		private final IndexMinDoublePQ pq;	// the frontier of this side
+
+		/**
+		 * Create the state of one side of the search
+		 * @param G the graph this side searches
+		 */
+		public Frontier(CSRGraph G) {
+			this.G = G;
+			distTo = new double[N];
+			edgeTo = new int[N];
+			version = new int[N];
+			pq = new IndexMinDoublePQ(N);
+		}
+
+		/**
+		 * Clear the frontier and start it from a root vertex
+		 * @param root the vertex this side starts from
+		 */
+		public void start(int root) {
+			pq.clear();
+			reach(root, 0, -1);
+			pq.insert(root, 0);
+		}
+
+		/**
+		 * Determine whether the current query has reached a vertex
+		 * @param v the vertex to inspect
+		 * @return whether v has a tentative distance
+		 */
+		public boolean reached(int v) {
+			return version[v] == stamp;
+		}
+
+		/**
+		 * Record a path to a vertex for the current query
+		 * @param v the vertex reached
+		 * @param dist the length of the path
+		 * @param from the vertex before v on the path, -1 if v is the root
+		 */
+		private void reach(int v, double dist, int from) {
+			version[v] = stamp;
+			distTo[v] = dist;
+			edgeTo[v] = from;
+		}
+
+		/**
+		 * Settle the closest vertex of the frontier, relax its arcs and
+		 * update the best path wherever they touch the other side
+		 * @param other the opposite side of the search
+		 */
+		public void step(Frontier other) {
+			int v = pq.dequeue();
+			settled++;
+			double dist = distTo[v];
+			for (int e = G.begin(v); e < G.end(v); e++) {
+				int w = G.target(e);
+				double d = dist + G.weight(e);
+				if (!reached(w)) {
+					reach(w, d, v);
+					pq.insert(w, d);
+				} else if (d < distTo[w]) {
+					reach(w, d, v);
+					pq.decreaseKey(w, d);
+				} else {
+					continue;
+				}
+				if (other.reached(w) && d + other.distTo[w] < best) {
+					best = d + other.distTo[w];
+					meet = w;
+				}
+			}
+		}
+
+		/**
+		 * Get the smallest tentative distance left in the frontier
+		 * @return the key at the head of the queue, or positive
+		 * 		infinity if this side is exhausted
+		 */
+		public double top() {
+			return pq.isEmpty() ? Double.POSITIVE_INFINITY : pq.minKey();
+		}
+	}
+
+	/**
+	 * Prepare a bidirectional search over a graph, building
+	 * its reverse once for the backward side
+	 * @param G the graph in compressed sparse row form
+	 */
+	public BidirectionalDjikstra(CSRGraph G) {
+		this(G, G.reverse());
+	}
+
+	/**
+	 * Prepare a bidirectional search over a graph and its reverse
+	 * @param G the graph in compressed sparse row form
+	 * @param R the reverse of G
+	 * @throws IllegalArgumentException if the two graphs don't have the same size
+	 */
+	public BidirectionalDjikstra(CSRGraph G, CSRGraph R) {
+		if (G.size() != R.size())
+			throw new IllegalArgumentException("The reverse graph has " + R.size() +
+					" vertices instead of " + G.size());
+		N = G.size();
+		forward = new Frontier(G);
+		backward = new Frontier(R);
+		stamp = 0;
+	}
+
+	@Override
+	public double query(int s, int t) {
+		validate(s);
+		validate(t);
+		nextStamp();
+		settled = 0;
+		best = Double.POSITIVE_INFINITY;
+		meet = -1;
+		forward.start(s);
+		backward.start(t);
+		if (s == t) {
+			best = 0;
+			meet = s;
+		}
+		// Any path not found yet is at least as long as the two tops
+		// together, so the best one is final as soon as that beats it
+		while (forward.top() + backward.top() < best) {
+			if (forward.top() <= backward.top())
+				forward.step(backward);
+			else
+				backward.step(forward);
+		}
+		return best;
+	}
+
+	/**
+	 * Move to the next query stamp. The stamps are only reset in the
+	 * rare case that they run out
+	 */
+	private void nextStamp() {
+		if (stamp == Integer.MAX_VALUE) {
+			for (int v = 0; v < N; v++)
+				forward.version[v] = backward.version[v] = 0;
+			stamp = 0;
+		}
+		stamp++;
+	}
+
+	@Override
+	public Iterable<Integer> path() {
+		if (stamp == 0)
+			throw new IllegalStateException("No query has been run yet");
+		LinkedList<Integer> path = new LinkedList<Integer>();
+		if (meet == -1)
+			return path;
+		for (int v = meet; v != -1; v = forward.edgeTo[v])
+			path.addFirst(v);
+		for (int v = backward.edgeTo[meet]; v != -1; v = backward.edgeTo[v])
+			path.addLast(v);
+		return path;
+	}
+
+	@Override
+	public int settled() {
+		return settled;
+	}
+
+	/**
+	 * Check that a vertex belongs to the graph
+	 * @param v the vertex to check
+	 * @throws IllegalArgumentException if v is not a valid vertex
+	 */
+	private void validate(int v) {
+		if (v < 0 || v >= N)
+			throw new IllegalArgumentException(v + " is not in the range [0, " + N + "]");
+	}
+}
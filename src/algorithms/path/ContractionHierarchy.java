@@ -0,0 +1,451 @@
+package algorithms.path;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+
+import datastructures.graphs.CSRGraph;
+import datastructures.trees.IndexMinDoublePQ;
+
+/**
+ * Contraction Hierarchies preprocessing for fast point to point queries.
+ * Vertices are contracted one at a time from the least to the most important,
+ * and whenever removing a vertex v would break the only shortest path u -> v -> x
+ * a shortcut u -> x is inserted in its place. Every shortest path of the
+ * original graph then has an equally short path in the augmented graph that
+ * first climbs and then descends the order, which is what
+ * ContractionHierarchyQuery searches for.
+ *
+ * The hierarchy stores the upward arcs of each vertex and the reversed
+ * downward arcs into it, together with the vertex each shortcut skips over,
+ * and can be saved to a file so the preprocessing is only paid once
+ *
+ * @author An Nguyen
+ *
+ */
+public class ContractionHierarchy implements Serializable {
+	private static final long serialVersionUID = 1L;
+	private static final int WITNESS_LIMIT = 500;	// the most vertices a witness search settles
+	private static final int SIMULATE_LIMIT = 50;	// the same bound while only estimating priorities
+
+	private final int N;					// the size of the graph
+	private final int[] rank;				// the position of v in the contraction order
+	private final int[] upOffsets;			// arcs v -> w with rank[v] < rank[w] are stored
+											// in [upOffsets[rank[v]], upOffsets[rank[v] + 1])
+	private final int[] upTargets;
+	private final double[] upWeights;
+	private final int[] upMiddle;			// the vertex a shortcut skips, -1 for an original arc
+	private final int[] downOffsets;		// arcs w -> v with rank[v] < rank[w] are stored
+											// reversed as v -> w in the same fashion
+	private final int[] downTargets;
+	private final double[] downWeights;
+	private final int[] downMiddle;
+	private int shortcuts;					// the number of shortcuts inserted
+
+	/**
+	 * The arcs on one side of a vertex in the graph being contracted,
+	 * which shrinks and grows as vertices are removed and shortcuts added
+	 * @author An Nguyen
+	 *
+	 */
+	private static class Arcs {
+		private int[] other = new int[4];			// the vertex on the other end of each arc
+		private double[] weight = new double[4];	// the weight of each arc
+		private int[] middle = new int[4];			// the vertex each arc skips, -1 if none
+		private int n;								// the number of arcs
+
+		/**
+		 * Find the arc to a vertex
+		 * @param w the other end of the arc
+		 * @return the position of the arc, or -1 if there is none
+		 */
+		public int find(int w) {
+			for (int i = 0; i < n; i++)
+				if (other[i] == w) return i;
+			return -1;
+		}
+
+		/**
+		 * Add an arc, or shorten the existing arc to the same vertex
+		 * @param w the other end of the arc
+		 * @param wt the weight of the arc
+		 * @param mid the vertex the arc skips, -1 if none
+		 */
+		public void add(int w, double wt, int mid) {
+			int i = find(w);
+			if (i != -1) {
+				if (wt < weight[i]) {
+					weight[i] = wt;
+					middle[i] = mid;
+				}
+				return;
+			}
+			if (n == other.length) {
+				other = Arrays.copyOf(other, 2 * n);
+				weight = Arrays.copyOf(weight, 2 * n);
+				middle = Arrays.copyOf(middle, 2 * n);
+			}
+			other[n] = w;
+			weight[n] = wt;
+			middle[n++] = mid;
+		}
+
+		/**
+		 * Remove the arc to a vertex, moving the last arc into its place
+		 * @param w the other end of the arc
+		 */
+		public void remove(int w) {
+			int i = find(w);
+			if (i == -1) return;
+			n--;
+			other[i] = other[n];
+			weight[i] = weight[n];
+			middle[i] = middle[n];
+		}
+	}
+
+	/**
+	 * Preprocess a graph into a contraction hierarchy
+	 * @param G the graph in compressed sparse row form, which must
+	 * 		not have negative weights
+	 */
+	public ContractionHierarchy(CSRGraph G) {
+		N = G.size();
+		rank = new int[N];
+		Arcs[] out = new Arcs[N], in = new Arcs[N];
+		for (int v = 0; v < N; v++) {
+			out[v] = new Arcs();
+			in[v] = new Arcs();
+		}
+		for (int v = 0; v < N; v++)
+			for (int e = G.begin(v); e < G.end(v); e++) {
+				if (G.target(e) == v) continue;
+				out[v].add(G.target(e), G.weight(e), -1);
+				in[G.target(e)].add(v, G.weight(e), -1);
+			}
+
+		Contractor contractor = new Contractor(out, in);
+		IndexMinDoublePQ order = new IndexMinDoublePQ(N);
+		for (int v = 0; v < N; v++)
+			order.insert(v, contractor.priority(v));
+
+		int[] upSize = new int[N], downSize = new int[N];
+		int[][] upArcs = new int[N][], downArcs = new int[N][];
+		double[][] upW = new double[N][], downW = new double[N][];
+		int[][] upMid = new int[N][], downMid = new int[N][];
+		int next = 0;
+		while (!order.isEmpty()) {
+			int v = order.dequeue();
+			// Priorities go stale as neighbors get contracted, so recompute
+			// it and put v back if it is no longer the least important
+			double priority = contractor.priority(v);
+			if (!order.isEmpty() && priority > order.minKey()) {
+				order.insert(v, priority);
+				continue;
+			}
+			rank[v] = next++;
+			// The arcs v still has all lead to vertices contracted later
+			upArcs[v] = Arrays.copyOf(out[v].other, out[v].n);
+			upW[v] = Arrays.copyOf(out[v].weight, out[v].n);
+			upMid[v] = Arrays.copyOf(out[v].middle, out[v].n);
+			upSize[v] = out[v].n;
+			downArcs[v] = Arrays.copyOf(in[v].other, in[v].n);
+			downW[v] = Arrays.copyOf(in[v].weight, in[v].n);
+			downMid[v] = Arrays.copyOf(in[v].middle, in[v].n);
+			downSize[v] = in[v].n;
+			shortcuts += contractor.contract(v, false);
+		}
+
+		upOffsets = new int[N + 1];
+		downOffsets = new int[N + 1];
+		for (int v = 0; v < N; v++) {
+			upOffsets[rank[v] + 1] = upSize[v];
+			downOffsets[rank[v] + 1] = downSize[v];
+		}
+		for (int r = 0; r < N; r++) {
+			upOffsets[r + 1] += upOffsets[r];
+			downOffsets[r + 1] += downOffsets[r];
+		}
+		upTargets = new int[upOffsets[N]];
+		upWeights = new double[upOffsets[N]];
+		upMiddle = new int[upOffsets[N]];
+		downTargets = new int[downOffsets[N]];
+		downWeights = new double[downOffsets[N]];
+		downMiddle = new int[downOffsets[N]];
+		for (int v = 0; v < N; v++) {
+			System.arraycopy(upArcs[v], 0, upTargets, upOffsets[rank[v]], upSize[v]);
+			System.arraycopy(upW[v], 0, upWeights, upOffsets[rank[v]], upSize[v]);
+			System.arraycopy(upMid[v], 0, upMiddle, upOffsets[rank[v]], upSize[v]);
+			System.arraycopy(downArcs[v], 0, downTargets, downOffsets[rank[v]], downSize[v]);
+			System.arraycopy(downW[v], 0, downWeights, downOffsets[rank[v]], downSize[v]);
+			System.arraycopy(downMid[v], 0, downMiddle, downOffsets[rank[v]], downSize[v]);
+		}
+	}
+
+	/**
+	 * The contraction of vertices out of the remaining graph, along with
+	 * the witness searches that decide which shortcuts are needed
+	 * @author An Nguyen
+	 *
+	 */
+	private class Contractor {
+		private final Arcs[] out, in;		// the arcs of the remaining graph
+		private final int[] deleted;		// the number of contracted neighbors of v
+		private final double[] distTo;		// the distance from the witness source
+		private final int[] version;		// the witness search that last reached v
+		private final IndexMinDoublePQ pq;	// the frontier of a witness search
+		private int stamp;					// the current witness search
+
+		/**
+		 * Prepare to contract a graph
+		 * @param out the arcs leaving each vertex
+		 * @param in the arcs entering each vertex
+		 */
+		public Contractor(Arcs[] out, Arcs[] in) {
+			this.out = out;
+			this.in = in;
+			deleted = new int[N];
+			distTo = new double[N];
+			version = new int[N];
+			pq = new IndexMinDoublePQ(N);
+		}
+
+		/**
+		 * Estimate how important a vertex is by its edge difference,
+		 * the shortcuts contracting it adds minus the arcs it removes,
+		 * plus how many of its neighbors are gone so the contraction
+		 * spreads evenly over the graph
+		 * @param v the vertex to inspect
+		 * @return the priority of v, the smaller the sooner it is contracted
+		 */
+		public double priority(int v) {
+			return 2 * (contract(v, true) - out[v].n - in[v].n) + deleted[v];
+		}
+
+		/**
+		 * Contract a vertex, adding a shortcut u -> x for every pair of
+		 * arcs u -> v -> x that has no witness path of at most the same length
+		 * @param v the vertex to contract
+		 * @param simulate whether to only count the shortcuts and
+		 * 		leave the graph untouched
+		 * @return the number of shortcuts needed
+		 */
+		public int contract(int v, boolean simulate) {
+			int added = 0;
+			Arcs from = in[v], to = out[v];
+			for (int i = 0; i < from.n; i++) {
+				int u = from.other[i];
+				double bound = 0;
+				for (int j = 0; j < to.n; j++)
+					bound = Math.max(bound, from.weight[i] + to.weight[j]);
+				witness(u, v, bound, simulate ? SIMULATE_LIMIT : WITNESS_LIMIT);
+				for (int j = 0; j < to.n; j++) {
+					int x = to.other[j];
+					if (x == u) continue;
+					double length = from.weight[i] + to.weight[j];
+					if (version[x] == stamp && distTo[x] <= length) continue;
+					added++;
+					if (!simulate) {
+						out[u].add(x, length, v);
+						in[x].add(u, length, v);
+					}
+				}
+			}
+			if (!simulate) {
+				for (int i = 0; i < from.n; i++) {
+					out[from.other[i]].remove(v);
+					deleted[from.other[i]]++;
+				}
+				for (int j = 0; j < to.n; j++) {
+					in[to.other[j]].remove(v);
+					deleted[to.other[j]]++;
+				}
+			}
+			return added;
+		}
+
+		/**
+		 * Run a bounded Dijkstra search from u in the remaining graph
+		 * without going through v, stopping once it passes the bound
+		 * or has settled enough vertices. A search cut short only
+		 * costs extra shortcuts, never a wrong distance
+		 * @param u the source of the search
+		 * @param v the vertex being contracted
+		 * @param bound the longest path worth finding
+		 * @param limit the most vertices to settle
+		 */
+		private void witness(int u, int v, double bound, int limit) {
+			stamp++;
+			pq.clear();
+			version[u] = stamp;
+			distTo[u] = 0;
+			pq.insert(u, 0);
+			for (int settled = 0; !pq.isEmpty() && settled < limit; settled++) {
+				if (pq.minKey() > bound) break;
+				int w = pq.dequeue();
+				Arcs arcs = out[w];
+				for (int j = 0; j < arcs.n; j++) {
+					int x = arcs.other[j];
+					if (x == v) continue;
+					double d = distTo[w] + arcs.weight[j];
+					if (version[x] != stamp) {
+						version[x] = stamp;
+						distTo[x] = d;
+						pq.insert(x, d);
+					} else if (d < distTo[x]) {
+						distTo[x] = d;
+						pq.decreaseKey(x, d);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Get the number of vertices in the graph
+	 * @return the number of vertices
+	 */
+	public int size() {
+		return N;
+	}
+
+	/**
+	 * Get the position of a vertex in the contraction order
+	 * @param v the vertex to inspect
+	 * @return the rank of v, 0 for the first vertex contracted
+	 */
+	public int rank(int v) {
+		return rank[v];
+	}
+
+	/**
+	 * Get the number of shortcuts inserted by the preprocessing
+	 * @return the number of shortcuts
+	 */
+	public int shortcuts() {
+		return shortcuts;
+	}
+
+	/**
+	 * Get the index of the first upward arc leaving v
+	 * @param v the vertex to inspect
+	 * @return the index of the first upward arc of v
+	 */
+	int upBegin(int v) {
+		return upOffsets[rank[v]];
+	}
+
+	/**
+	 * Get the index one past the last upward arc leaving v
+	 * @param v the vertex to inspect
+	 * @return the end of the upward arc range of v
+	 */
+	int upEnd(int v) {
+		return upOffsets[rank[v] + 1];
+	}
+
+	/**
+	 * Get the head of an upward arc
+	 * @param e the index of the arc
+	 * @return the vertex the arc points to
+	 */
+	int upTarget(int e) {
+		return upTargets[e];
+	}
+
+	/**
+	 * Get the weight of an upward arc
+	 * @param e the index of the arc
+	 * @return the weight of the arc
+	 */
+	double upWeight(int e) {
+		return upWeights[e];
+	}
+
+	/**
+	 * Get the index of the first reversed downward arc of v
+	 * @param v the vertex to inspect
+	 * @return the index of the first downward arc into v
+	 */
+	int downBegin(int v) {
+		return downOffsets[rank[v]];
+	}
+
+	/**
+	 * Get the index one past the last reversed downward arc of v
+	 * @param v the vertex to inspect
+	 * @return the end of the downward arc range of v
+	 */
+	int downEnd(int v) {
+		return downOffsets[rank[v] + 1];
+	}
+
+	/**
+	 * Get the tail of a reversed downward arc
+	 * @param e the index of the arc
+	 * @return the vertex the arc comes from
+	 */
+	int downTarget(int e) {
+		return downTargets[e];
+	}
+
+	/**
+	 * Get the weight of a reversed downward arc
+	 * @param e the index of the arc
+	 * @return the weight of the arc
+	 */
+	double downWeight(int e) {
+		return downWeights[e];
+	}
+
+	/**
+	 * Find the vertex that the arc v -> w of the hierarchy skips over
+	 * @param v the tail of the arc
+	 * @param w the head of the arc
+	 * @return the middle vertex of the shortcut, or -1 if the arc is original
+	 * @throws IllegalArgumentException if v -> w is not an arc of the hierarchy
+	 */
+	int middle(int v, int w) {
+		if (rank[v] < rank[w]) {
+			for (int e = upBegin(v); e < upEnd(v); e++)
+				if (upTargets[e] == w) return upMiddle[e];
+		} else {
+			for (int e = downBegin(w); e < downEnd(w); e++)
+				if (downTargets[e] == v) return downMiddle[e];
+		}
+		throw new IllegalArgumentException(v + " -> " + w + " is not an arc of the hierarchy");
+	}
+
+	/**
+	 * Save the hierarchy to a file
+	 * @param file the path of the file to write
+	 * @throws IOException if the file can't be written
+	 */
+	public void save(String file) throws IOException {
+		try (ObjectOutputStream stream = new ObjectOutputStream(
+				new BufferedOutputStream(new FileOutputStream(file)))) {
+			stream.writeObject(this);
+		}
+	}
+
+	/**
+	 * Load a hierarchy saved by save
+	 * @param file the path of the file to read
+	 * @return the hierarchy stored in the file
+	 * @throws IOException if the file can't be read or holds no hierarchy
+	 */
+	public static ContractionHierarchy load(String file) throws IOException {
+		try (ObjectInputStream stream = new ObjectInputStream(
+				new BufferedInputStream(new FileInputStream(file)))) {
+			return (ContractionHierarchy) stream.readObject();
+		} catch (ClassNotFoundException | ClassCastException e) {
+			throw new IOException(file + " does not hold a contraction hierarchy", e);
+		}
+	}
+}
@@ -0,0 +1,236 @@
+package algorithms.path;
+
+import java.util.LinkedList;
+
+import datastructures.trees.IndexMinDoublePQ;
+
+/**
+ * Point to point queries over a contraction hierarchy. A forward search
+ * from the source only climbs upward arcs and a backward search from the
+ * target only climbs reversed downward arcs, so both stay inside the small
+ * upward cones of their endpoints. The shortest path is the best vertex
+ * reached by both, with its shortcuts unpacked back into original arcs
+ *
+ * @author An Nguyen
+ *
+ */
+public class ContractionHierarchyQuery implements PathQuery {
+	private final ContractionHierarchy H;	// the preprocessed graph
+	private final Frontier forward;			// the search from the source
+	private final Frontier backward;		// the search from the target
+	private int stamp;						// the current query, 0 if none has been run
+	private double best;					// the length of the best path found so far
+	private int meet;						// the top of the best path, -1 if none
+	private int settled;					// the number of vertices settled by the last query
+
+	/**
+	 * The state of one direction of the search, which is stamped
+	 * with the query that last wrote it like DjikstraSearch
+	 * @author An Nguyen
+	 *
+	 */
+	private class Frontier {
+		private final boolean up;			// whether this side climbs upward arcs
+		private final double[] distTo;		// the distance from this side's root
+		private final int[] edgeTo;			// the vertex before v on this side's path to v
+		private final int[] version;		// the query that last reached v
+		private final IndexMinDoublePQ pq;	// the frontier of this side
+
+		/**
+		 * Create the state of one side of the search
+		 * @param up whether this side climbs the upward arcs
+		 * 		rather than the reversed downward arcs
+		 */
+		public Frontier(boolean up) {
+			this.up = up;
+			distTo = new double[H.size()];
+			edgeTo = new int[H.size()];
+			version = new int[H.size()];
+			pq = new IndexMinDoublePQ(H.size());
+		}
+
+		/**
+		 * Clear the frontier and start it from a root vertex
+		 * @param root the vertex this side starts from
+		 */
+		public void start(int root) {
+			pq.clear();
+			reach(root, 0, -1);
+			pq.insert(root, 0);
+		}
+
+		/**
+		 * Determine whether the current query has reached a vertex
+		 * @param v the vertex to inspect
+		 * @return whether v has a tentative distance
+		 */
+		public boolean reached(int v) {
+			return version[v] == stamp;
+		}
+
+		/**
+		 * Record a path to a vertex for the current query
+		 * @param v the vertex reached
+		 * @param dist the length of the path
+		 * @param from the vertex before v on the path, -1 if v is the root
+		 */
+		private void reach(int v, double dist, int from) {
+			version[v] = stamp;
+			distTo[v] = dist;
+			edgeTo[v] = from;
+		}
+
+		/**
+		 * Settle the closest vertex of the frontier, relax its arcs and
+		 * update the best path wherever they touch the other side
+		 * @param other the opposite side of the search
+		 */
+		public void step(Frontier other) {
+			int v = pq.dequeue();
+			settled++;
+			double dist = distTo[v];
+			int begin = up ? H.upBegin(v) : H.downBegin(v);
+			int end = up ? H.upEnd(v) : H.downEnd(v);
+			for (int e = begin; e < end; e++) {
+				int w = up ? H.upTarget(e) : H.downTarget(e);
+				double d = dist + (up ? H.upWeight(e) : H.downWeight(e));
+				if (!reached(w)) {
+					reach(w, d, v);
+					pq.insert(w, d);
+				} else if (d < distTo[w]) {
+					reach(w, d, v);
+					pq.decreaseKey(w, d);
+				} else {
+					continue;
+				}
+				if (other.reached(w) && d + other.distTo[w] < best) {
+					best = d + other.distTo[w];
+					meet = w;
+				}
+			}
+		}
+
+		/**
+		 * Determine whether this side can still improve the best path
+		 * @return whether the frontier holds a vertex closer than the best path
+		 */
+		public boolean open() {
+			return !pq.isEmpty() && pq.minKey() < best;
+		}
+	}
+
+	/**
+	 * Prepare queries over a contraction hierarchy
+	 * @param H the preprocessed graph
+	 */
+	public ContractionHierarchyQuery(ContractionHierarchy H) {
+		this.H = H;
+		forward = new Frontier(true);
+		backward = new Frontier(false);
+		stamp = 0;
+	}
+
+	@Override
+	public double query(int s, int t) {
+		validate(s);
+		validate(t);
+		nextStamp();
+		settled = 0;
+		best = Double.POSITIVE_INFINITY;
+		meet = -1;
+		forward.start(s);
+		backward.start(t);
+		if (s == t) {
+			best = 0;
+			meet = s;
+		}
+		// Unlike a plain bidirectional search, the two cones can't stop as
+		// soon as they meet, since the top of the shortest path may
+		// lie beyond where they first touch
+		while (forward.open() || backward.open()) {
+			if (!backward.open() || forward.open() && forward.pq.minKey() <= backward.pq.minKey())
+				forward.step(backward);
+			else
+				backward.step(forward);
+		}
+		return best;
+	}
+
+	/**
+	 * Move to the next query stamp. The stamps are only reset in the
+	 * rare case that they run out
+	 */
+	private void nextStamp() {
+		if (stamp == Integer.MAX_VALUE) {
+			for (int v = 0; v < H.size(); v++)
+				forward.version[v] = backward.version[v] = 0;
+			stamp = 0;
+		}
+		stamp++;
+	}
+
+	@Override
+	public Iterable<Integer> path() {
+		if (stamp == 0)
+			throw new IllegalStateException("No query has been run yet");
+		LinkedList<Integer> path = new LinkedList<Integer>();
+		if (meet == -1)
+			return path;
+		path.add(meet);
+		for (int v = meet; forward.edgeTo[v] != -1; v = forward.edgeTo[v])
+			unpack(forward.edgeTo[v], v, path, true);
+		for (int v = meet; backward.edgeTo[v] != -1; v = backward.edgeTo[v])
+			unpack(v, backward.edgeTo[v], path, false);
+		return path;
+	}
+
+	/**
+	 * Unpack an arc of the hierarchy into the original arcs it stands for
+	 * and add their vertices to one end of a path. The arc's own endpoint
+	 * on that end of the path is expected to be in it already
+	 * @param v the tail of the arc
+	 * @param w the head of the arc
+	 * @param path the path to extend
+	 * @param front whether to extend the path at its front with the
+	 * 		vertices before w, or at its back with the vertices after v
+	 */
+	private void unpack(int v, int w, LinkedList<Integer> path, boolean front) {
+		// Shortcuts split into two arcs around their middle vertex, which is
+		// done with an explicit stack since long shortcuts nest deeply
+		LinkedList<int[]> stack = new LinkedList<int[]>();
+		stack.push(new int[] { v, w });
+		while (!stack.isEmpty()) {
+			int[] arc = stack.pop();
+			int mid = H.middle(arc[0], arc[1]);
+			if (mid != -1) {
+				// Visit the half nearest the end being extended first
+				if (front) {
+					stack.push(new int[] { arc[0], mid });
+					stack.push(new int[] { mid, arc[1] });
+				} else {
+					stack.push(new int[] { mid, arc[1] });
+					stack.push(new int[] { arc[0], mid });
+				}
+			} else if (front) {
+				path.addFirst(arc[0]);
+			} else {
+				path.addLast(arc[1]);
+			}
+		}
+	}
+
+	@Override
+	public int settled() {
+		return settled;
+	}
+
+	/**
+	 * Check that a vertex belongs to the graph
+	 * @param v the vertex to check
+	 * @throws IllegalArgumentException if v is not a valid vertex
+	 */
+	private void validate(int v) {
+		if (v < 0 || v >= H.size())
+			throw new IllegalArgumentException(v + " is not in the range [0, " + H.size() + "]");
+	}
+}
@@ -0,0 +1,408 @@
+package algorithms.path;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import datastructures.graphs.CSRGraph;
+
+/**
+ * Delta-stepping single source shortest paths. Tentative distances are
+ * grouped into buckets of width delta, and all the vertices of the lowest
+ * bucket are relaxed at once by a fork join pool instead of one vertex at a
+ * time. Light arcs (at most delta long) can drop a vertex back into the
+ * current bucket, so they are relaxed repeatedly until the bucket stays
+ * empty, and heavy arcs are relaxed only once for everything the bucket
+ * settled. A delta close to the average arc weight keeps the buckets
+ * both full enough to split across threads and cheap to revisit.
+ * Every thread drops the vertices it improves into a ring of buckets of its
+ * own, so no step of a phase is serial: the next bucket is read straight
+ * from the bags of all threads, and stale copies of a vertex are skipped by
+ * the tasks themselves. Buckets past the ring wait in an overflow bag until
+ * the ring is used up
+ *
+ * @author An Nguyen
+ *
+ */
+public class DeltaStepping implements ShortestPaths {
+	private static final int GRAIN = 512;		// the fewest vertices a task splits into two
+	private static final int WINDOW = 1 << 10;	// the number of buckets in a ring
+
+	private final CSRGraph G;					// the graph being searched
+	private final double delta;					// the width of a bucket
+	private final AtomicLongArray dist;			// the bits of the tentative distance to v
+	private final AtomicIntegerArray taken;		// the last phase that took v out of a bucket
+	private final AtomicIntegerArray settled;	// the last round that settled v
+	private final double[] distTo;				// the final distance to v
+	private Queue<Bins> all;					// the buckets of every thread
+	private ThreadLocal<Bins> local;			// the buckets of the current thread
+	private long base;							// the first bucket of the ring
+	private long bucket;						// the bucket being emptied
+	private int phase, round;					// the number of phases and rounds so far
+
+	/**
+	 * A growable list of vertices
+	 * @author An Nguyen
+	 *
+	 */
+	private static class Bag {
+		private int[] items = new int[16];	// the vertices in the bag
+		private int n;						// the number of vertices
+
+		/**
+		 * Add a vertex to the bag
+		 * @param v the vertex to add
+		 */
+		public void add(int v) {
+			if (n == items.length)
+				items = Arrays.copyOf(items, 2 * n);
+			items[n++] = v;
+		}
+	}
+
+	/**
+	 * The buckets a single thread has filled, a ring of the WINDOW
+	 * buckets from base on, the overflow past them and the vertices
+	 * the thread settled this round
+	 * @author An Nguyen
+	 *
+	 */
+	private static class Bins {
+		private final Bag[] ring = new Bag[WINDOW];	// the bag of bucket j at j % WINDOW, or null
+		private Bag overflow = new Bag();			// the vertices of buckets past the ring
+		private Bag settled = new Bag();			// the vertices settled this round
+	}
+
+	/**
+	 * The bags of every thread for a bucket, read in
+	 * place as if they were one array
+	 * @author An Nguyen
+	 *
+	 */
+	private static class Frontier {
+		private final int[][] items;	// the vertices of each bag
+		private final int[] offset;		// where each bag starts, with the total at the end
+
+		/**
+		 * Join some bags into one frontier
+		 * @param bags the bags to join
+		 */
+		public Frontier(List<Bag> bags) {
+			items = new int[bags.size()][];
+			offset = new int[bags.size() + 1];
+			for (int b = 0; b < bags.size(); b++) {
+				items[b] = bags.get(b).items;
+				offset[b + 1] = offset[b] + bags.get(b).n;
+			}
+		}
+
+		/**
+		 * Get the number of vertices in the frontier
+		 * @return the number of vertices
+		 */
+		public int size() {
+			return offset[offset.length - 1];
+		}
+	}
+
+	/**
+	 * The relaxation of one kind of arc out of a range of vertices,
+	 * split in halves across the pool until the ranges are small
+	 * @author An Nguyen
+	 *
+	 */
+	private class Relax extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final Frontier frontier;	// the vertices whose arcs to relax
+		private final int lo, hi;			// the range of vertices of this task
+		private final boolean light;		// whether to relax light or heavy arcs
+
+		/**
+		 * Create a relaxation of a range of vertices
+		 * @param frontier the vertices whose arcs to relax
+		 * @param lo the start of the range, inclusive
+		 * @param hi the end of the range, exclusive
+		 * @param light whether to relax the light arcs of the current bucket
+		 * 		rather than the heavy arcs of the vertices it settled
+		 */
+		public Relax(Frontier frontier, int lo, int hi, boolean light) {
+			this.frontier = frontier;
+			this.lo = lo;
+			this.hi = hi;
+			this.light = light;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo > GRAIN) {
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new Relax(frontier, lo, mid, light), new Relax(frontier, mid, hi, light));
+				return;
+			}
+			Bins bins = local.get();
+			int b = 0;
+			while (frontier.offset[b + 1] <= lo)
+				b++;
+			for (int i = lo; i < hi; i++) {
+				while (frontier.offset[b + 1] <= i)
+					b++;
+				int v = frontier.items[b][i - frontier.offset[b]];
+				if (light) {
+					// A vertex is left behind in every bucket it passes through,
+					// so only take the ones that still belong to this bucket
+					if (bucketOf(v) != bucket || taken.getAndSet(v, phase) == phase) continue;
+					if (settled.getAndSet(v, round) != round)
+						bins.settled.add(v);
+				}
+				double d = Double.longBitsToDouble(dist.get(v));
+				for (int e = G.begin(v); e < G.end(v); e++) {
+					if (G.weight(e) <= delta != light) continue;
+					int w = G.target(e);
+					if (relax(w, d + G.weight(e)))
+						schedule(bins, w);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Compute the shortest distance to any vertex from a source
+	 * on the common fork join pool
+	 * @param G the graph in compressed sparse row form, which must
+	 * 		not have negative weights
+	 * @param s the source of the graph
+	 * @param delta the width of a bucket
+	 * @throws IllegalArgumentException if s is not a valid vertex or
+	 * 		delta is not positive
+	 */
+	public DeltaStepping(CSRGraph G, int s, double delta) {
+		this(G, s, delta, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Compute the shortest distance to any vertex from a source
+	 * @param G the graph in compressed sparse row form, which must
+	 * 		not have negative weights
+	 * @param s the source of the graph
+	 * @param delta the width of a bucket
+	 * @param pool the pool that runs the relaxations
+	 * @throws IllegalArgumentException if s is not a valid vertex or
+	 * 		delta is not positive
+	 */
+	public DeltaStepping(CSRGraph G, int s, double delta, ForkJoinPool pool) {
+		int N = G.size();
+		if (s < 0 || s >= N)
+			throw new IllegalArgumentException(s + " is not in the range [0, " + N + "]");
+		if (!(delta > 0))
+			throw new IllegalArgumentException("The bucket width " + delta + " is not positive");
+		this.G = G;
+		this.delta = delta;
+		dist = new AtomicLongArray(N);
+		taken = new AtomicIntegerArray(N);
+		settled = new AtomicIntegerArray(N);
+		long infinity = Double.doubleToLongBits(Double.POSITIVE_INFINITY);
+		for (int v = 0; v < N; v++)
+			dist.set(v, infinity);
+		dist.set(s, Double.doubleToLongBits(0));
+		final Queue<Bins> all = new ConcurrentLinkedQueue<Bins>();
+		this.all = all;
+		local = new ThreadLocal<Bins>() {
+			@Override
+			protected Bins initialValue() {
+				Bins bins = new Bins();
+				all.add(bins);
+				return bins;
+			}
+		};
+		schedule(local.get(), s);
+
+		while (true) {
+			for (bucket = base; bucket < base + WINDOW; bucket++) {
+				// A heavy arc longer than delta can still round its target
+				// down into this bucket, so the bucket is emptied again until
+				// the heavy arcs leave nothing behind in it
+				Frontier frontier;
+				while ((frontier = take(bucket)).size() > 0) {
+					round++;
+					do {
+						phase++;
+						pool.invoke(new Relax(frontier, 0, frontier.size(), true));
+					} while ((frontier = take(bucket)).size() > 0);
+					List<Bag> bags = new ArrayList<Bag>();
+					for (Bins bins : all)
+						if (bins.settled.n > 0) {
+							bags.add(bins.settled);
+							bins.settled = new Bag();
+						}
+					frontier = new Frontier(bags);
+					if (frontier.size() > 0)
+						pool.invoke(new Relax(frontier, 0, frontier.size(), false));
+				}
+			}
+			if (!advance()) break;
+		}
+
+		distTo = new double[N];
+		for (int v = 0; v < N; v++)
+			distTo[v] = Double.longBitsToDouble(dist.get(v));
+		// The threads of the pool outlive the search, so let go of their buckets
+		for (Bins bins : all)
+			Arrays.fill(bins.ring, null);
+		this.all = null;
+		local = null;
+	}
+
+	/**
+	 * Take the bags of every thread for a bucket of the ring,
+	 * leaving the threads to fill new ones
+	 * @param j the bucket, inside the ring
+	 * @return the vertices dropped into bucket j so far
+	 */
+	private Frontier take(long j) {
+		int k = (int) (j % WINDOW);
+		List<Bag> bags = new ArrayList<Bag>();
+		for (Bins bins : all)
+			if (bins.ring[k] != null) {
+				bags.add(bins.ring[k]);
+				bins.ring[k] = null;
+			}
+		return new Frontier(bags);
+	}
+
+	/**
+	 * Move the ring to the lowest bucket left in the overflow
+	 * once every bucket of the ring is empty
+	 * @return whether any vertex is left to settle
+	 */
+	private boolean advance() {
+		List<Bag> bags = new ArrayList<Bag>();
+		for (Bins bins : all)
+			if (bins.overflow.n > 0) {
+				bags.add(bins.overflow);
+				bins.overflow = new Bag();
+			}
+		// Copies whose vertex got closer were settled in the ring already
+		long next = Long.MAX_VALUE;
+		for (Bag bag : bags)
+			for (int k = 0; k < bag.n; k++) {
+				long j = bucketOf(bag.items[k]);
+				if (j >= base + WINDOW) next = Math.min(next, j);
+			}
+		if (next == Long.MAX_VALUE) return false;
+		base = next;
+		Bins bins = local.get();
+		for (Bag bag : bags)
+			for (int k = 0; k < bag.n; k++)
+				if (bucketOf(bag.items[k]) >= base)
+					schedule(bins, bag.items[k]);
+		return true;
+	}
+
+	/**
+	 * Put an improved vertex into the bucket of its new distance,
+	 * in the ring of a thread or its overflow
+	 * @param bins the buckets of the thread
+	 * @param w the vertex whose distance went down
+	 */
+	private void schedule(Bins bins, int w) {
+		long j = bucketOf(w);
+		if (j - base >= WINDOW) {
+			bins.overflow.add(w);
+			return;
+		}
+		int k = (int) (j % WINDOW);
+		if (bins.ring[k] == null)
+			bins.ring[k] = new Bag();
+		bins.ring[k].add(w);
+	}
+
+	/**
+	 * Lower the tentative distance to a vertex if a new path is shorter.
+	 * Several threads may race on the same vertex, and the compare and set
+	 * only lets a strictly smaller distance win
+	 * @param w the vertex reached
+	 * @param d the length of the new path to w
+	 * @return whether the distance to w went down
+	 */
+	private boolean relax(int w, double d) {
+		long bits = Double.doubleToLongBits(d);
+		while (true) {
+			long current = dist.get(w);
+			if (d >= Double.longBitsToDouble(current))
+				return false;
+			if (dist.compareAndSet(w, current, bits))
+				return true;
+		}
+	}
+
+	/**
+	 * Compute the bucket a vertex belongs to by its tentative distance
+	 * @param v the vertex to inspect
+	 * @return the index of the bucket of v
+	 */
+	private long bucketOf(int v) {
+		return (long) (Double.longBitsToDouble(dist.get(v)) / delta);
+	}
+
+	/**
+	 * Compute the distance to a particular vertex
+	 * @param v the vertex to inspect
+	 * @return the distance to that vertex from the source
+	 * @throws IllegalArgumentException if v is not a valid vertex
+	 */
+	@Override
+	public double distTo(int v) {
+		if (v < 0 || v >= distTo.length)
+			throw new IllegalArgumentException(v + " is not in the range [0, " + distTo.length + "]");
+		return distTo[v];
+	}
+
+	/**
+	 * Report how the search scales with the number of threads on a
+	 * random graph, next to Djikstra's Algorithm
+	 * @param args the size of the graph, the out degree of every vertex,
+	 * 		the bucket width and the largest thread count
+	 */
+	public static void main(String[] args) {
+		int N = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int degree = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+		double delta = args.length > 2 ? Double.parseDouble(args[2]) : 0.1;
+		int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+		// A heavy arc out of bucket 35436 whose target rounds back into it
+		CSRGraph.Builder path = new CSRGraph.Builder(4);
+		path.addEdge(0, 1, 604.1180461384153);
+		path.addEdge(1, 2, 0.017048144433299904);
+		path.addEdge(2, 3, 1);
+		CSRGraph P = path.build();
+		double reached = new DeltaStepping(P, 0, 0.0170481444332999).distTo(3);
+		System.out.printf("%-10s %s%n", "rounding", reached == new Djikstra(P, 0).distTo(3) ? "ok" : reached + " MISMATCH");
+
+		Random random = new Random(N);
+		CSRGraph.Builder builder = new CSRGraph.Builder(N, N * degree);
+		for (int v = 0; v < N; v++)
+			for (int k = 0; k < degree; k++)
+				builder.addEdge(v, random.nextInt(N), random.nextDouble());
+		CSRGraph G = builder.build();
+		long start = System.nanoTime();
+		Djikstra expected = new Djikstra(G, 0);
+		System.out.printf("%-10s %10.2f ms%n", "Djikstra", (System.nanoTime() - start) / 1e6);
+		for (int p = 1; p <= threads; p *= 2) {
+			ForkJoinPool pool = new ForkJoinPool(p);
+			start = System.nanoTime();
+			DeltaStepping sp = new DeltaStepping(G, 0, delta, pool);
+			double time = (System.nanoTime() - start) / 1e6;
+			pool.shutdown();
+			int bad = 0;
+			for (int v = 0; v < N; v++)
+				if (sp.distTo(v) != expected.distTo(v)) bad++;
+			System.out.printf("%-10s %10.2f ms%s%n", p + " threads", time, bad == 0 ? "" : "  " + bad + " MISMATCHES");
+		}
+	}
+}
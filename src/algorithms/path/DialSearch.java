@@ -0,0 +1,88 @@
+package algorithms.path;
+
+import java.util.Arrays;
+
+import datastructures.graphs.CSRGraph;
+
+/**
+ * Dial's algorithm, Dijkstra's algorithm with a bucket queue for small
+ * integer weights. Vertices are kept in one bucket per distance, and since
+ * no tentative distance is ever more than C past the one being settled,
+ * C + 1 buckets reused in a circle are enough. The search runs in
+ * |E| + |V| + D where D is the largest distance, with no heap at all.
+ * The buckets make it only fit for small C, so weights above
+ * IntegerShortestPaths.DIAL_MAX_WEIGHT are rejected
+ *
+ * @author An Nguyen
+ *
+ */
+public class DialSearch implements ShortestPaths {
+	private long[] distTo; // Stores the distance from the source s
+						   // to any vertex, -1 if unreached
+
+	/**
+	 * Compute the shortest distance to any vertex from a source
+	 * @param G the graph in compressed sparse row form
+	 * @param s the source of the graph
+	 * @throws IllegalArgumentException if s is not a valid vertex or some
+	 * 		weight is not an integer in the range [0, IntegerShortestPaths.DIAL_MAX_WEIGHT],
+	 * 		since a larger weight would need too many buckets
+	 */
+	public DialSearch(CSRGraph G, int s) {
+		this(G, s, (int) IntegerShortestPaths.validate(G, s, IntegerShortestPaths.DIAL_MAX_WEIGHT));
+	}
+
+	/**
+	 * Compute the shortest distance to any vertex from a source, given the
+	 * largest weight of the graph already found in range, so only the
+	 * source is checked
+	 * @param G the graph in compressed sparse row form
+	 * @param s the source of the graph
+	 * @param C the largest weight, at most IntegerShortestPaths.DIAL_MAX_WEIGHT
+	 * @throws IllegalArgumentException if s is not a valid vertex
+	 */
+	DialSearch(CSRGraph G, int s, int C) {
+		IntegerShortestPaths.checkSource(G, s);
+		int N = G.size();
+		distTo = new long[N];
+		for (int i = 0; i < N; i++)
+			distTo[i] = -1;
+		// Buckets are only allocated once something lands in them
+		int[][] buckets = new int[C + 1][];
+		int[] sizes = new int[C + 1];
+		distTo[s] = 0;
+		buckets[0] = new int[] { s };
+		sizes[0] = 1;
+		int pending = 1;
+		// Entries left behind by a later improvement are skipped when their
+		// distance no longer matches the bucket they are found in
+		for (long d = 0; pending > 0; d++) {
+			int b = (int) (d % (C + 1));
+			while (sizes[b] > 0) {
+				int v = buckets[b][--sizes[b]];
+				pending--;
+				if (distTo[v] != d) continue;
+				for (int e = G.begin(v); e < G.end(v); e++) {
+					int w = G.target(e);
+					long dw = d + (long) G.weight(e);
+					if (distTo[w] != -1 && distTo[w] <= dw) continue;
+					distTo[w] = dw;
+					int c = (int) (dw % (C + 1));
+					if (buckets[c] == null)
+						buckets[c] = new int[4];
+					else if (sizes[c] == buckets[c].length)
+						buckets[c] = Arrays.copyOf(buckets[c], 2 * sizes[c]);
+					buckets[c][sizes[c]++] = w;
+					pending++;
+				}
+			}
+		}
+	}
+
+	@Override
+	public double distTo(int v) {
+		if (v < 0 || v >= distTo.length)
+			throw new IllegalArgumentException(v + " is not in the range [0, " + distTo.length + "]");
+		return distTo[v] == -1 ? Double.POSITIVE_INFINITY : distTo[v];
+	}
+}
@@ -4,6 +4,7 @@ import java.util.LinkedList;
 import java.util.PriorityQueue;
 
 import datastructures.edges.WeightedEdge;
+import datastructures.graphs.CSRGraph;
 
 /**
  * Dijkstra's Greedy algorithm to find the shortest
@@ -13,7 +14,7 @@ import datastructures.edges.WeightedEdge;
  * @author An Nguyen
  *
  */
-public class Djikstra {
+public class Djikstra implements ShortestPaths {
 	
 	private double[] distTo; // Stores the distance from the source s
 							// to any vertex
@@ -56,7 +57,7 @@ public class Djikstra {
 		PriorityQueue<Node> pq = new PriorityQueue<Node>();
 		distTo = new double[N];
 		for (int i = 0; i < N; i++) 
-			distTo[s] = Double.POSITIVE_INFINITY;
+			distTo[i] = Double.POSITIVE_INFINITY;
 		distTo[s] = 0;
 		pq.add(new Node(s, 0));
 		while (!pq.isEmpty()) {
@@ -70,12 +71,40 @@ public class Djikstra {
 		}
 	}
 	
+	/**
+	 * Create a shortest path instance over a compressed graph, which
+	 * walks each neighborhood as a contiguous range of arcs
+	 * @param G the graph in compressed sparse row form
+	 * @param s the source of the graph
+	 */
+	public Djikstra(CSRGraph G, int s) {
+		int N = G.size();
+		PriorityQueue<Node> pq = new PriorityQueue<Node>();
+		distTo = new double[N];
+		for (int i = 0; i < N; i++) 
+			distTo[i] = Double.POSITIVE_INFINITY;
+		distTo[s] = 0;
+		pq.add(new Node(s, 0));
+		while (!pq.isEmpty()) {
+			Node X = pq.poll();
+			if (X.dist > distTo[X.v]) continue; // a stale entry
+			for (int e = G.begin(X.v); e < G.end(X.v); e++) {
+				int w = G.target(e);
+				if (X.dist + G.weight(e) < distTo[w]) {
+					distTo[w] = X.dist + G.weight(e);
+					pq.add(new Node(w, distTo[w]));
+				}
+			}
+		}
+	}
+	
 	/**
 	 * Compute the distance to a particular vertex
 	 * @param v the vertex to inspect
 	 * @return the distance to that vertex from the source
 	 * @throws IllegalArgumentException if v is not a valid vertex
 	 */
+	@Override
 	public double distTo(int v) {
 		if (v < 0 || v >= distTo.length)
 			throw new IllegalArgumentException();
@@ -0,0 +1,198 @@
+package algorithms.path;
+
+import java.util.LinkedList;
+
+import datastructures.graphs.CSRGraph;
+import datastructures.trees.IndexMinDoublePQ;
+
+/**
+ * Dijkstra's algorithm over a compressed graph backed by an indexed
+ * heap of primitive keys. Every vertex sits in the heap at most once and
+ * a shorter path lowers its key in place, so the heap never grows past |V|
+ * and a relaxation allocates nothing. The working arrays are created once
+ * per graph and are stamped with the query that last wrote them, so
+ * starting a new query costs nothing no matter how large the graph is
+ *
+ * @author An Nguyen
+ *
+ */
+public class DjikstraSearch implements PathQuery {
+	private final CSRGraph G;			// the graph to search
+	private final double[] distTo;		// Stores the distance from the last source
+										// to any vertex reached by the last query
+	private final int[] edgeTo;			// the vertex before v on the shortest path to v
+	private final int[] version;		// the query that last reached v
+	private final IndexMinDoublePQ pq;	// the frontier of the search
+	private int stamp;					// the current query, 0 if none has been run
+	private int source, target;			// the endpoints of the last query
+	private int settled;				// the number of vertices settled by the last query
+
+	/**
+	 * Prepare a search over a graph. No search is run until
+	 * a source is given
+	 * @param G the graph in compressed sparse row form
+	 */
+	public DjikstraSearch(CSRGraph G) {
+		this.G = G;
+		distTo = new double[G.size()];
+		edgeTo = new int[G.size()];
+		version = new int[G.size()];
+		pq = new IndexMinDoublePQ(G.size());
+		stamp = 0;
+	}
+
+	/**
+	 * Compute the shortest distance to any vertex from a source,
+	 * overwriting the result of the previous search
+	 * @param s the source of the search
+	 * @throws IllegalArgumentException if s is not a valid vertex
+	 */
+	public void search(int s) {
+		validate(s);
+		run(s, -1);
+	}
+
+	@Override
+	public double query(int s, int t) {
+		validate(s);
+		validate(t);
+		run(s, t);
+		return distTo(t);
+	}
+
+	/**
+	 * Run the search from s until t is settled, or until every
+	 * reachable vertex is settled if t is -1
+	 * @param s the source of the search
+	 * @param t the target of the search, or -1 for no target
+	 */
+	private void run(int s, int t) {
+		nextStamp();
+		source = s;
+		target = t;
+		settled = 0;
+		pq.clear();
+		reach(s, 0, -1);
+		pq.insert(s, 0);
+		while (!pq.isEmpty()) {
+			int v = pq.dequeue();
+			settled++;
+			if (v == t) return;
+			double dist = distTo[v];
+			for (int e = G.begin(v); e < G.end(v); e++) {
+				int w = G.target(e);
+				double d = dist + G.weight(e);
+				if (version[w] != stamp) {
+					reach(w, d, v);
+					pq.insert(w, d);
+				} else if (d < distTo[w]) {
+					// w is still in the heap, since a settled
+					// vertex can't be improved
+					reach(w, d, v);
+					pq.decreaseKey(w, d);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Record a path to a vertex for the current query
+	 * @param v the vertex reached
+	 * @param dist the length of the path
+	 * @param from the vertex before v on the path, -1 if v is the source
+	 */
+	private void reach(int v, double dist, int from) {
+		version[v] = stamp;
+		distTo[v] = dist;
+		edgeTo[v] = from;
+	}
+
+	/**
+	 * Move to the next query stamp. The stamps are only reset in the
+	 * rare case that they run out
+	 */
+	private void nextStamp() {
+		if (stamp == Integer.MAX_VALUE) {
+			for (int v = 0; v < version.length; v++)
+				version[v] = 0;
+			stamp = 0;
+		}
+		stamp++;
+	}
+
+	/**
+	 * Get the source of the last search
+	 * @return the source vertex, or -1 if no search has been run
+	 */
+	public int source() {
+		return stamp == 0 ? -1 : source;
+	}
+
+	@Override
+	public int settled() {
+		return settled;
+	}
+
+	/**
+	 * Compute the distance to a particular vertex. After a query with
+	 * a target, only the distances to settled vertices are final
+	 * @param v the vertex to inspect
+	 * @return the distance to that vertex from the last source
+	 * @throws IllegalArgumentException if v is not a valid vertex
+	 * @throws IllegalStateException if no search has been run
+	 */
+	public double distTo(int v) {
+		validate(v);
+		if (stamp == 0)
+			throw new IllegalStateException("No search has been run yet");
+		return version[v] == stamp ? distTo[v] : Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Get the vertex before another on its shortest path from the last
+	 * source, which lets callers walk the shortest path tree
+	 * @param v the vertex to inspect
+	 * @return the parent of v, or -1 if v is the source or has not been reached
+	 * @throws IllegalArgumentException if v is not a valid vertex
+	 * @throws IllegalStateException if no search has been run
+	 */
+	public int edgeTo(int v) {
+		return distTo(v) == Double.POSITIVE_INFINITY ? -1 : edgeTo[v];
+	}
+
+	/**
+	 * Compute the shortest path from the last source to a vertex
+	 * @param v the vertex to inspect
+	 * @return the vertices on the path from the source to v, in order,
+	 * 		or an empty path if v has not been reached
+	 * @throws IllegalArgumentException if v is not a valid vertex
+	 * @throws IllegalStateException if no search has been run
+	 */
+	public Iterable<Integer> pathTo(int v) {
+		LinkedList<Integer> path = new LinkedList<Integer>();
+		if (distTo(v) == Double.POSITIVE_INFINITY)
+			return path;
+		for (int x = v; x != -1; x = edgeTo[x])
+			path.addFirst(x);
+		return path;
+	}
+
+	@Override
+	public Iterable<Integer> path() {
+		if (stamp == 0)
+			throw new IllegalStateException("No query has been run yet");
+		if (target == -1)
+			throw new IllegalStateException("The last search had no target");
+		return pathTo(target);
+	}
+
+	/**
+	 * Check that a vertex belongs to the graph
+	 * @param v the vertex to check
+	 * @throws IllegalArgumentException if v is not a valid vertex
+	 */
+	private void validate(int v) {
+		if (v < 0 || v >= distTo.length)
+			throw new IllegalArgumentException(v + " is not in the range [0, " + distTo.length + "]");
+	}
+}
@@ -0,0 +1,86 @@
+package algorithms.path;
+
+import datastructures.graphs.CSRGraph;
+
+/**
+ * The entry point to the integer weight shortest path engines. Graphs
+ * whose weights are small whole numbers don't need a comparison heap over
+ * double keys, so the engine is picked from the range of the weights:
+ * a deque for weights of 0 and 1, Dial's buckets for small weights and a
+ * radix heap for anything larger. Graphs with fractional or negative weights
+ * fall back to Djikstra
+ *
+ * @author An Nguyen
+ *
+ */
+public class IntegerShortestPaths {
+	static final int DIAL_MAX_WEIGHT = 1 << 10;		// the largest weight Dial's buckets are used for
+	static final double MAX_WEIGHT = Integer.MAX_VALUE;	// the largest integer weight, so that
+													// no path length overflows a long
+
+	/**
+	 * Compute the shortest distance to any vertex from a source with
+	 * the engine best suited to the weights of the graph
+	 * @param G the graph in compressed sparse row form
+	 * @param s the source of the graph
+	 * @return the shortest distances from s
+	 * @throws IllegalArgumentException if s is not a valid vertex
+	 */
+	public static ShortestPaths of(CSRGraph G, int s) {
+		long C = maxWeight(G);
+		if (C < 0)
+			return new Djikstra(G, s);
+		// The weights were just scanned, so the engines are handed C
+		// rather than scanning them again
+		if (C <= 1)
+			return new ZeroOneBFS(G, s, C);
+		if (C <= DIAL_MAX_WEIGHT)
+			return new DialSearch(G, s, (int) C);
+		return new RadixHeapSearch(G, s, C);
+	}
+
+	/**
+	 * Find the largest weight of a graph whose weights are all integers
+	 * @param G the graph to inspect
+	 * @return the largest weight, 0 if the graph has no arcs, or -1 if some
+	 * 		weight is fractional, negative or larger than MAX_WEIGHT
+	 */
+	static long maxWeight(CSRGraph G) {
+		double C = 0;
+		for (int e = 0; e < G.edges(); e++) {
+			double w = G.weight(e);
+			if (!(w >= 0 && w <= MAX_WEIGHT) || w != Math.rint(w))
+				return -1;
+			C = Math.max(C, w);
+		}
+		return (long) C;
+	}
+
+	/**
+	 * Check that a graph has integer weights and find the largest one
+	 * @param G the graph to inspect
+	 * @param s the source the engine will start from
+	 * @param limit the largest weight the engine accepts
+	 * @return the largest weight of the graph
+	 * @throws IllegalArgumentException if s is not a valid vertex, or if some
+	 * 		weight is not an integer in the range [0, limit]
+	 */
+	static long validate(CSRGraph G, int s, long limit) {
+		checkSource(G, s);
+		long C = maxWeight(G);
+		if (C < 0 || C > limit)
+			throw new IllegalArgumentException("The weights are not integers in the range [0, " + limit + "]");
+		return C;
+	}
+
+	/**
+	 * Check that a source is a vertex of a graph
+	 * @param G the graph to inspect
+	 * @param s the source the engine will start from
+	 * @throws IllegalArgumentException if s is not a valid vertex
+	 */
+	static void checkSource(CSRGraph G, int s) {
+		if (s < 0 || s >= G.size())
+			throw new IllegalArgumentException(s + " is not in the range [0, " + G.size() + "]");
+	}
+}
@@ -0,0 +1,284 @@
+package algorithms.path;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Random;
+
+import datastructures.graphs.CSRGraph;
+
+/**
+ * Landmark distance tables for A* search with the ALT lower bounds.
+ * For every landmark L the distances d(L, v) and d(v, L) are precomputed,
+ * and by the triangle inequality both d(L, t) - d(L, v) and d(v, L) - d(t, L)
+ * are lower bounds on d(v, t). The tables are flat primitive arrays
+ * holding one row of N distances per landmark, and can be saved to a
+ * file so they are only computed once per graph
+ *
+ * @author An Nguyen
+ *
+ */
+public class Landmarks implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private final int N;				// the size of the graph
+	private final int[] landmarks;		// the chosen landmark vertices
+	private final double[] from;		// d(L_k, v) is stored at k * N + v
+	private final double[] to;			// d(v, L_k) is stored at k * N + v
+
+	/**
+	 * The ways landmarks can be chosen
+	 * @author An Nguyen
+	 *
+	 */
+	public enum Selection {
+		/** Repeatedly pick the vertex farthest from the landmarks chosen so far */
+		FARTHEST,
+		/**
+		 * Repeatedly grow a shortest path tree from a random root and descend
+		 * into the subtree the current landmarks cover worst
+		 */
+		AVOID
+	}
+
+	/**
+	 * Choose landmarks of a graph and compute their distance tables
+	 * @param G the graph in compressed sparse row form, which must
+	 * 		not have negative weights
+	 * @param K the number of landmarks
+	 * @param selection how the landmarks are chosen
+	 * @throws IllegalArgumentException if K is not in the range [1, N]
+	 */
+	public Landmarks(CSRGraph G, int K, Selection selection) {
+		N = G.size();
+		if (K < 1 || K > N)
+			throw new IllegalArgumentException(K + " is not in the range [1, " + N + "]");
+		landmarks = new int[K];
+		from = new double[K * N];
+		to = new double[K * N];
+		DjikstraSearch forward = new DjikstraSearch(G);
+		DjikstraSearch backward = new DjikstraSearch(G.reverse());
+		Random random = new Random(N);
+		for (int k = 0; k < K; k++) {
+			int L;
+			if (k == 0)
+				L = farthest(forward, random.nextInt(N), 0);
+			else if (selection == Selection.AVOID)
+				L = avoid(forward, random.nextInt(N), k);
+			else
+				L = farthest(forward, -1, k);
+			landmarks[k] = L;
+			forward.search(L);
+			backward.search(L);
+			for (int v = 0; v < N; v++) {
+				from[k * N + v] = forward.distTo(v);
+				to[k * N + v] = backward.distTo(v);
+			}
+		}
+	}
+
+	/**
+	 * Find the vertex farthest from the landmarks chosen so far. Vertices
+	 * none of them reach count as the farthest of all, so every part of
+	 * the graph eventually gets a landmark
+	 * @param search a search over the graph
+	 * @param root the vertex to measure from if there are no landmarks yet
+	 * @param K the number of landmarks chosen so far
+	 * @return the next landmark
+	 */
+	private int farthest(DjikstraSearch search, int root, int K) {
+		if (K == 0) {
+			search.search(root);
+			int best = root;
+			for (int v = 0; v < N; v++)
+				if (search.distTo(v) != Double.POSITIVE_INFINITY && search.distTo(v) > search.distTo(best))
+					best = v;
+			return best;
+		}
+		int best = -1;
+		double bestDist = -1;
+		for (int v = 0; v < N; v++) {
+			double dist = Double.POSITIVE_INFINITY;
+			for (int k = 0; k < K; k++)
+				dist = Math.min(dist, from[k * N + v] + to[k * N + v]);
+			if (dist > bestDist && !isLandmark(v, K)) {
+				best = v;
+				bestDist = dist;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Choose the next landmark with the avoid heuristic. Every vertex of a
+	 * shortest path tree from the root is weighted by how far the current
+	 * bounds fall short of its real distance, subtrees that already hold a
+	 * landmark weigh nothing, and the landmark is the leaf reached from
+	 * the heaviest vertex by always stepping into the heaviest subtree
+	 * @param search a search over the graph
+	 * @param root the root of the shortest path tree
+	 * @param K the number of landmarks chosen so far
+	 * @return the next landmark
+	 */
+	private int avoid(DjikstraSearch search, int root, int K) {
+		search.search(root);
+		// Lay the children of every tree vertex out like a CSR graph
+		int[] offsets = new int[N + 1];
+		for (int v = 0; v < N; v++)
+			if (search.edgeTo(v) != -1)
+				offsets[search.edgeTo(v) + 1]++;
+		for (int v = 0; v < N; v++)
+			offsets[v + 1] += offsets[v];
+		int[] next = new int[N];
+		System.arraycopy(offsets, 0, next, 0, N);
+		int[] children = new int[offsets[N]];
+		int[] pending = new int[N];	// the children of v whose size is not known yet
+		for (int v = 0; v < N; v++)
+			if (search.edgeTo(v) != -1) {
+				children[next[search.edgeTo(v)]++] = v;
+				pending[search.edgeTo(v)]++;
+			}
+
+		// Sum the weights up the tree from its leaves
+		double[] size = new double[N];
+		boolean[] covered = new boolean[N];
+		int[] queue = new int[N];
+		int head = 0, tail = 0;
+		for (int v = 0; v < N; v++)
+			if (search.distTo(v) != Double.POSITIVE_INFINITY && pending[v] == 0)
+				queue[tail++] = v;
+		while (head < tail) {
+			int v = queue[head++];
+			covered[v] |= isLandmark(v, K);
+			size[v] = covered[v] ? 0 : size[v] + search.distTo(v) - bound(root, v, K);
+			int parent = search.edgeTo(v);
+			if (parent == -1) continue;
+			size[parent] += size[v];
+			covered[parent] |= covered[v];
+			if (--pending[parent] == 0)
+				queue[tail++] = parent;
+		}
+
+		// Start from the heaviest subtree, since every subtree above
+		// a landmark weighs nothing
+		int v = root;
+		for (int w = 0; w < N; w++)
+			if (size[w] > size[v])
+				v = w;
+		if (size[v] <= 0)
+			return farthest(search, -1, K);
+		while (offsets[v] < offsets[v + 1]) {
+			int heaviest = -1;
+			for (int i = offsets[v]; i < offsets[v + 1]; i++)
+				if (heaviest == -1 || size[children[i]] > size[heaviest])
+					heaviest = children[i];
+			if (size[heaviest] <= 0) break;
+			v = heaviest;
+		}
+		return v;
+	}
+
+	/**
+	 * Determine whether a vertex is one of the first K landmarks
+	 * @param v the vertex to inspect
+	 * @param K the number of landmarks to check
+	 * @return whether v is a landmark
+	 */
+	private boolean isLandmark(int v, int K) {
+		for (int k = 0; k < K; k++)
+			if (landmarks[k] == v) return true;
+		return false;
+	}
+
+	/**
+	 * Compute the best lower bound on d(v, t) from the first K landmarks.
+	 * A landmark that reaches neither vertex, or both at infinity, gives
+	 * no bound, which the comparisons skip since they are made with NaN
+	 * @param v the start of the path
+	 * @param t the end of the path
+	 * @param K the number of landmarks to use
+	 * @return a lower bound on the distance from v to t
+	 */
+	private double bound(int v, int t, int K) {
+		double bound = 0;
+		for (int k = 0; k < K; k++) {
+			double forward = from[k * N + t] - from[k * N + v];
+			double backward = to[k * N + v] - to[k * N + t];
+			if (forward > bound) bound = forward;
+			if (backward > bound) bound = backward;
+		}
+		return bound;
+	}
+
+	/**
+	 * Compute a lower bound on the distance between two vertices
+	 * @param v the start of the path
+	 * @param t the end of the path
+	 * @return a lower bound on d(v, t), which is positive infinity if
+	 * 		t can't be reached from v
+	 * @throws IllegalArgumentException if v or t is not a valid vertex
+	 */
+	public double lowerBound(int v, int t) {
+		if (v < 0 || v >= N || t < 0 || t >= N)
+			throw new IllegalArgumentException("The value " + v + " or " + t +
+					" is not in the range [0, " + N + "]");
+		return bound(v, t, landmarks.length);
+	}
+
+	/**
+	 * Get the number of vertices in the graph
+	 * @return the number of vertices
+	 */
+	public int size() {
+		return N;
+	}
+
+	/**
+	 * Get the number of landmarks
+	 * @return the number of landmarks
+	 */
+	public int count() {
+		return landmarks.length;
+	}
+
+	/**
+	 * Get one of the landmarks
+	 * @param k the index of the landmark
+	 * @return the vertex of the k-th landmark
+	 */
+	public int landmark(int k) {
+		return landmarks[k];
+	}
+
+	/**
+	 * Save the tables to a file
+	 * @param file the path of the file to write
+	 * @throws IOException if the file can't be written
+	 */
+	public void save(String file) throws IOException {
+		try (ObjectOutputStream stream = new ObjectOutputStream(
+				new BufferedOutputStream(new FileOutputStream(file)))) {
+			stream.writeObject(this);
+		}
+	}
+
+	/**
+	 * Load tables saved by save
+	 * @param file the path of the file to read
+	 * @return the landmarks stored in the file
+	 * @throws IOException if the file can't be read or holds no landmarks
+	 */
+	public static Landmarks load(String file) throws IOException {
+		try (ObjectInputStream stream = new ObjectInputStream(
+				new BufferedInputStream(new FileInputStream(file)))) {
+			return (Landmarks) stream.readObject();
+		} catch (ClassNotFoundException | ClassCastException e) {
+			throw new IOException(file + " does not hold landmark tables", e);
+		}
+	}
+}
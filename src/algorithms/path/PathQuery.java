@@ -0,0 +1,38 @@
+package algorithms.path;
+
+/**
+ * A point to point shortest path query over a fixed graph. An
+ * implementation is built once per graph and then answers any
+ * number of (source, target) queries, so it can keep its working
+ * arrays from one query to the next
+ *
+ * @author An Nguyen
+ *
+ */
+public interface PathQuery {
+
+	/**
+	 * Compute the shortest distance from a source to a target
+	 * @param s the source vertex
+	 * @param t the target vertex
+	 * @return the length of the shortest path from s to t, or
+	 * 		positive infinity if t can't be reached from s
+	 * @throws IllegalArgumentException if s or t is not a valid vertex
+	 */
+	public double query(int s, int t);
+
+	/**
+	 * Get the shortest path found by the last query
+	 * @return the vertices on the path from the source to the target,
+	 * 		in order, or an empty path if the target can't be reached
+	 * @throws IllegalStateException if no query has been run
+	 */
+	public Iterable<Integer> path();
+
+	/**
+	 * Get the number of vertices the last query settled, which is
+	 * the amount of work it did
+	 * @return the number of vertices settled
+	 */
+	public int settled();
+}
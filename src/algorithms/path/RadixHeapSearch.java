@@ -0,0 +1,68 @@
+package algorithms.path;
+
+import datastructures.graphs.CSRGraph;
+import datastructures.trees.RadixHeap;
+
+/**
+ * Dijkstra's algorithm for integer weights over a radix heap. The keys
+ * removed from Dijkstra's queue never decrease, which is all a radix heap
+ * needs, and each key is moved between buckets at most 64 times instead of
+ * paying a log |V| comparison sift on every operation
+ *
+ * @author An Nguyen
+ *
+ */
+public class RadixHeapSearch implements ShortestPaths {
+	private long[] distTo; // Stores the distance from the source s
+						   // to any vertex, -1 if unreached
+
+	/**
+	 * Compute the shortest distance to any vertex from a source
+	 * @param G the graph in compressed sparse row form
+	 * @param s the source of the graph
+	 * @throws IllegalArgumentException if s is not a valid vertex or some
+	 * 		weight is not an integer in the range [0, IntegerShortestPaths.MAX_WEIGHT]
+	 */
+	public RadixHeapSearch(CSRGraph G, int s) {
+		this(G, s, IntegerShortestPaths.validate(G, s, (long) IntegerShortestPaths.MAX_WEIGHT));
+	}
+
+	/**
+	 * Compute the shortest distance to any vertex from a source, given the
+	 * largest weight of the graph already found in range, so only the
+	 * source is checked
+	 * @param G the graph in compressed sparse row form
+	 * @param s the source of the graph
+	 * @param C the largest weight, at most IntegerShortestPaths.MAX_WEIGHT
+	 * @throws IllegalArgumentException if s is not a valid vertex
+	 */
+	RadixHeapSearch(CSRGraph G, int s, long C) {
+		IntegerShortestPaths.checkSource(G, s);
+		int N = G.size();
+		distTo = new long[N];
+		for (int i = 0; i < N; i++)
+			distTo[i] = -1;
+		RadixHeap heap = new RadixHeap();
+		distTo[s] = 0;
+		heap.insert(0, s);
+		while (!heap.isEmpty()) {
+			long d = heap.minKey();
+			int v = heap.dequeue();
+			if (d > distTo[v]) continue; // a stale entry
+			for (int e = G.begin(v); e < G.end(v); e++) {
+				int w = G.target(e);
+				long dw = d + (long) G.weight(e);
+				if (distTo[w] != -1 && distTo[w] <= dw) continue;
+				distTo[w] = dw;
+				heap.insert(dw, w);
+			}
+		}
+	}
+
+	@Override
+	public double distTo(int v) {
+		if (v < 0 || v >= distTo.length)
+			throw new IllegalArgumentException(v + " is not in the range [0, " + distTo.length + "]");
+		return distTo[v] == -1 ? Double.POSITIVE_INFINITY : distTo[v];
+	}
+}
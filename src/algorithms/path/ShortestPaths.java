@@ -0,0 +1,20 @@
+package algorithms.path;
+
+/**
+ * The shortest distances from one source to every vertex of a graph,
+ * as computed by any of the single source algorithms
+ *
+ * @author An Nguyen
+ *
+ */
+public interface ShortestPaths {
+
+	/**
+	 * Compute the distance to a particular vertex
+	 * @param v the vertex to inspect
+	 * @return the distance to that vertex from the source, or
+	 * 		positive infinity if it can't be reached
+	 * @throws IllegalArgumentException if v is not a valid vertex
+	 */
+	public double distTo(int v);
+}
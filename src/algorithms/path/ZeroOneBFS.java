@@ -0,0 +1,79 @@
+package algorithms.path;
+
+import datastructures.graphs.CSRGraph;
+
+/**
+ * Shortest paths in a graph whose weights are all 0 or 1, found by a
+ * breadth first search on a deque. A vertex reached over a 0 arc is as
+ * close as the vertex it came from and goes to the front, one reached over
+ * a 1 arc goes to the back, so the deque always holds at most two
+ * distances in order and the search runs in |E| + |V|
+ *
+ * @author An Nguyen
+ *
+ */
+public class ZeroOneBFS implements ShortestPaths {
+	private long[] distTo; // Stores the distance from the source s
+						   // to any vertex, -1 if unreached
+
+	/**
+	 * Compute the shortest distance to any vertex from a source
+	 * @param G the graph in compressed sparse row form
+	 * @param s the source of the graph
+	 * @throws IllegalArgumentException if s is not a valid vertex or
+	 * 		some weight is neither 0 nor 1
+	 */
+	public ZeroOneBFS(CSRGraph G, int s) {
+		this(G, s, IntegerShortestPaths.validate(G, s, 1));
+	}
+
+	/**
+	 * Compute the shortest distance to any vertex from a source, given the
+	 * largest weight of the graph already found in range, so only the
+	 * source is checked
+	 * @param G the graph in compressed sparse row form
+	 * @param s the source of the graph
+	 * @param C the largest weight, 0 or 1
+	 * @throws IllegalArgumentException if s is not a valid vertex
+	 */
+	ZeroOneBFS(CSRGraph G, int s, long C) {
+		IntegerShortestPaths.checkSource(G, s);
+		int N = G.size();
+		distTo = new long[N];
+		for (int i = 0; i < N; i++)
+			distTo[i] = -1;
+		boolean[] done = new boolean[N];
+		// A ring buffer deque; a vertex is pushed at most once per
+		// incoming arc plus once for the source
+		int[] deque = new int[G.edges() + 2];
+		int head = 0, tail = 0;
+		distTo[s] = 0;
+		deque[tail++] = s;
+		while (head != tail) {
+			int v = deque[head];
+			head = head + 1 == deque.length ? 0 : head + 1;
+			if (done[v]) continue;
+			done[v] = true;
+			for (int e = G.begin(v); e < G.end(v); e++) {
+				int w = G.target(e);
+				long d = distTo[v] + (long) G.weight(e);
+				if (distTo[w] != -1 && distTo[w] <= d) continue;
+				distTo[w] = d;
+				if (d == distTo[v]) {
+					head = head == 0 ? deque.length - 1 : head - 1;
+					deque[head] = w;
+				} else {
+					deque[tail] = w;
+					tail = tail + 1 == deque.length ? 0 : tail + 1;
+				}
+			}
+		}
+	}
+
+	@Override
+	public double distTo(int v) {
+		if (v < 0 || v >= distTo.length)
+			throw new IllegalArgumentException(v + " is not in the range [0, " + distTo.length + "]");
+		return distTo[v] == -1 ? Double.POSITIVE_INFINITY : distTo[v];
+	}
+}
@@ -0,0 +1,372 @@
+package datastructures.disjointset;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Disjoint Set Data Structure that many threads can join and inspect at
+ * once without locks. Parents live in an atomic array: a root is linked
+ * under another root with a single compare and set, which fails and retries
+ * if some other thread linked it first, and finds halve their path with
+ * compare and set too, so a lost race only skips a shortcut. Roots are linked
+ * by a hashed priority of their index, which keeps trees shallow like union
+ * by rank without storing ranks that would have to change atomically with
+ * the parents
+ *
+ * @author An Nguyen
+ *
+ */
+public class ConcurrentUnionFind {
+	private static final int GRAIN = 1 << 13;	// the fewest pairs a task splits into two
+
+	private final AtomicIntegerArray parent;	// the parent of each element, itself for a root
+	private final AtomicInteger count;			// the number of trees
+
+	/**
+	 * Join or check a range of pairs
+	 * @author An Nguyen
+	 *
+	 */
+	private class Bulk extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final int[] p, q;			// the pairs
+		private final boolean[] result;		// the answer for each pair, null to join them
+		private final int lo, hi;			// the range of pairs of this task
+
+		/**
+		 * Create the work of a range of pairs
+		 * @param p the first element of each pair
+		 * @param q the second element of each pair
+		 * @param result the answer for each pair, or null to join the pairs
+		 * @param lo the start of the range, inclusive
+		 * @param hi the end of the range, exclusive
+		 */
+		public Bulk(int[] p, int[] q, boolean[] result, int lo, int hi) {
+			this.p = p;
+			this.q = q;
+			this.result = result;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo > GRAIN) {
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new Bulk(p, q, result, lo, mid), new Bulk(p, q, result, mid, hi));
+				return;
+			}
+			for (int k = lo; k < hi; k++)
+				if (result == null) link(p[k], q[k]);
+				else result[k] = same(p[k], q[k]);
+		}
+	}
+
+	/**
+	 * Create a forest of disconnected trees
+	 * that can be joined and inspect their connectivity
+	 * @param N the size of the forest
+	 */
+	public ConcurrentUnionFind(int N) {
+		parent = new AtomicIntegerArray(N);
+		for (int i = 0; i < N; i++)
+			parent.set(i, i);
+		count = new AtomicInteger(N);
+	}
+
+	/**
+	 * Find the root of the tree of an element, pointing each element on
+	 * the way to its grandparent. The root found may be linked under another
+	 * by the time it is returned, unless the trees are no longer changing
+	 * @param i the index of the element to inspect
+	 * @return the root index of that element
+	 * @throws IllegalArgumentException if i is not a valid index
+	 */
+	public int find(int i) {
+		check(i);
+		return root(i);
+	}
+
+	/**
+	 * Check that an index is in the forest
+	 * @param i the index to check
+	 * @throws IllegalArgumentException if i is not a valid index
+	 */
+	private void check(int i) {
+		if (i >= length() || i < 0)
+			throw new IllegalArgumentException("The value " + i +
+					" is not in the range [0, " + length() + "]");
+	}
+
+	/**
+	 * Find the root of the tree of an element like find,
+	 * without checking the index
+	 * @param i the index of the element to inspect, known to be valid
+	 * @return the root index of that element
+	 */
+	private int root(int i) {
+		while (true) {
+			int p = parent.get(i);
+			if (p == i) return i;
+			int g = parent.get(p);
+			if (g != p)
+				parent.compareAndSet(i, p, g);
+			i = g;
+		}
+	}
+
+	/**
+	 * Determine whether two elements are connected (belong to the same
+	 * tree). The answer is exact at some moment during the call
+	 * @param p the first element
+	 * @param q the second element
+	 * @return whether the two are connected
+	 * @throws IllegalArgumentException if either indices are not valid
+	 */
+	public boolean connected(int p, int q) {
+		check(p);
+		check(q);
+		return same(p, q);
+	}
+
+	/**
+	 * Determine whether two elements are connected like connected,
+	 * without checking the indices
+	 * @param p the first element, known to be valid
+	 * @param q the second element, known to be valid
+	 * @return whether the two are connected
+	 */
+	private boolean same(int p, int q) {
+		while (true) {
+			int i = root(p), j = root(q);
+			if (i == j) return true;
+			// Both were roots at once only if i is still one
+			if (parent.get(i) == i) return false;
+		}
+	}
+
+	/**
+	 * Combine the trees of two elements
+	 * @param p the index of one of the elements of the first tree
+	 * @param q the index of one of the elements of the second tree
+	 * @return whether the trees were joined by this call, false if
+	 * 		they were already the same tree
+	 * @throws IllegalArgumentException if either indices are not valid
+	 */
+	public boolean union(int p, int q) {
+		check(p);
+		check(q);
+		return link(p, q);
+	}
+
+	/**
+	 * Combine the trees of two elements like union,
+	 * without checking the indices
+	 * @param p an element of the first tree, known to be valid
+	 * @param q an element of the second tree, known to be valid
+	 * @return whether the trees were joined by this call
+	 */
+	private boolean link(int p, int q) {
+		while (true) {
+			int i = root(p), j = root(q);
+			if (i == j) return false;
+			if (before(j, i)) {
+				int swap = i; i = j; j = swap;
+			}
+			// Link the root of lower priority under the other
+			if (parent.compareAndSet(i, i, j)) {
+				count.decrementAndGet();
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Combine the trees of many pairs of elements, split across the
+	 * threads of a pool and checked once up front
+	 * @param p the first element of each pair
+	 * @param q the second element of each pair
+	 * @param pool the pool that runs the unions
+	 * @return the number of pairs that joined two trees, exact if
+	 * 		no other thread joins trees at the same time
+	 * @throws IllegalArgumentException if the arrays have different lengths
+	 * 		or an index is not valid, in which case no pair is joined
+	 */
+	public int unionAll(int[] p, int[] q, ForkJoinPool pool) {
+		WeightedQuickUnionFind.validate(p, q, length());
+		int before = count();
+		pool.invoke(new Bulk(p, q, null, 0, p.length));
+		return before - count();
+	}
+
+	/**
+	 * Determine whether each of many pairs of elements are connected,
+	 * split across the threads of a pool and checked once up front
+	 * @param p the first element of each pair
+	 * @param q the second element of each pair
+	 * @param result the array to store whether each pair is connected
+	 * @param pool the pool that runs the checks
+	 * @throws IllegalArgumentException if the arrays have different lengths
+	 * 		or an index is not valid
+	 */
+	public void connectedAll(int[] p, int[] q, boolean[] result, ForkJoinPool pool) {
+		WeightedQuickUnionFind.validate(p, q, length());
+		if (result.length < p.length)
+			throw new IllegalArgumentException("The result of length " + result.length +
+					" can't hold " + p.length + " answers");
+		pool.invoke(new Bulk(p, q, result, 0, p.length));
+	}
+
+	/**
+	 * Compare the linking priority of two roots
+	 * @param i the first root
+	 * @param j the second root
+	 * @return whether i ranks below j
+	 */
+	private static boolean before(int i, int j) {
+		int a = mix(i), b = mix(j);
+		return a < b || (a == b && i < j);
+	}
+
+	/**
+	 * Scramble an index into its linking priority
+	 * @param i the index
+	 * @return the priority of i
+	 */
+	private static int mix(int i) {
+		int h = i * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * Get the number of trees in the forest, exact
+	 * once the trees are no longer changing
+	 * @return the number of trees
+	 */
+	public int count() {
+		return count.get();
+	}
+
+	/**
+	 * Determine the size of the forest
+	 * @return the number of elements
+	 */
+	public int length() {
+		return parent.length();
+	}
+
+	/**
+	 * Join random pairs from many threads at once and check the trees
+	 * against a WeightedQuickUnionFind fed the same pairs, then compare the
+	 * throughput of an even mix of unions and connectivity checks with a
+	 * WeightedQuickUnionFind behind a lock
+	 * @param args the size of the forest, the number of operations per
+	 * 		thread and the largest thread count
+	 * @throws InterruptedException if the main thread is interrupted
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		final int N = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		final int ops = args.length > 1 ? Integer.parseInt(args[1]) : 2000000;
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		int T = Math.max(threads, 4);
+		final int[][] p = new int[T][ops], q = new int[T][ops];
+		Random random = new Random(N);
+		for (int t = 0; t < T; t++)
+			for (int i = 0; i < ops; i++) {
+				p[t][i] = random.nextInt(N);
+				q[t][i] = random.nextInt(N);
+			}
+
+		// Every thread joins a quarter of its pairs at the same time
+		final ConcurrentUnionFind shared = new ConcurrentUnionFind(N);
+		final AtomicInteger joins = new AtomicInteger();
+		Thread[] pool = new Thread[T];
+		for (int t = 0; t < T; t++) {
+			final int id = t;
+			pool[t] = new Thread() {
+				@Override
+				public void run() {
+					for (int i = 0; i < ops / 4; i++)
+						if (shared.union(p[id][i], q[id][i]))
+							joins.incrementAndGet();
+				}
+			};
+		}
+		run(pool);
+		// Each tree lies in one expected tree, and every pair was joined
+		WeightedQuickUnionFind expected = new WeightedQuickUnionFind(N);
+		for (int t = 0; t < T; t++)
+			for (int i = 0; i < ops / 4; i++)
+				expected.union(p[t][i], q[t][i]);
+		int[] first = new int[N];
+		int bad = 0, trees = 0;
+		for (int i = 0; i < N; i++) {
+			int r = shared.find(i);
+			if (r == i) {
+				trees++;
+				first[r] = i;
+			}
+		}
+		for (int i = 0; i < N; i++)
+			if (!expected.connected(i, first[shared.find(i)])) bad++;
+		for (int t = 0; t < T; t++)
+			for (int i = 0; i < ops / 4; i++)
+				if (!shared.connected(p[t][i], q[t][i])) bad++;
+		if (trees != shared.count() || trees != N - joins.get()) bad++;
+		System.out.printf("stress on %d threads: %d trees, %d mismatches%n", T, trees, bad);
+
+		for (int k = 1; k <= threads; k *= 2) {
+			final ConcurrentUnionFind free = new ConcurrentUnionFind(N);
+			pool = new Thread[k];
+			for (int t = 0; t < k; t++) {
+				final int id = t;
+				pool[t] = new Thread() {
+					@Override
+					public void run() {
+						for (int i = 0; i < ops; i++)
+							if ((i & 1) == 0) free.union(p[id][i], q[id][i]);
+							else free.connected(p[id][i], q[id][i]);
+					}
+				};
+			}
+			long start = System.nanoTime();
+			run(pool);
+			double lockFree = (System.nanoTime() - start) / 1e6;
+
+			final WeightedQuickUnionFind locked = new WeightedQuickUnionFind(N);
+			for (int t = 0; t < k; t++) {
+				final int id = t;
+				pool[t] = new Thread() {
+					@Override
+					public void run() {
+						for (int i = 0; i < ops; i++)
+							synchronized (locked) {
+								if ((i & 1) == 0) locked.union(p[id][i], q[id][i]);
+								else locked.connected(p[id][i], q[id][i]);
+							}
+					}
+				};
+			}
+			start = System.nanoTime();
+			run(pool);
+			double synced = (System.nanoTime() - start) / 1e6;
+			System.out.printf("%2d threads: lock free %8.2f Mops/s, synchronized %8.2f Mops/s%n",
+					k, k * (double) ops / lockFree / 1e3, k * (double) ops / synced / 1e3);
+		}
+	}
+
+	/**
+	 * Start some threads and wait for all of them to finish
+	 * @param pool the threads to run
+	 * @throws InterruptedException if the main thread is interrupted
+	 */
+	private static void run(Thread[] pool) throws InterruptedException {
+		for (Thread thread : pool)
+			thread.start();
+		for (Thread thread : pool)
+			thread.join();
+	}
+}
@@ -0,0 +1,144 @@
+package datastructures.disjointset;
+
+/**
+ * Disjoint Set Data Structure whose unions can be undone in the reverse
+ * order they were made. Trees are joined by size and never compressed, so
+ * a union only changes the parent and size of one root each and finds stay
+ * within log N steps. Every union that joins two trees records the root it
+ * linked on a stack, and rolling back pops the stack down to a checkpoint
+ *
+ * @author An Nguyen
+ *
+ */
+public class RollbackUnionFind {
+	private final int[] parent;		// the parent of each element, itself for a root
+	private final int[] size;		// the size of the tree of each root
+	private final int[] history;	// the roots linked under another, in order
+	private int top;				// the number of unions on the stack
+	private int count;				// the number of trees
+
+	/**
+	 * Create a forest of disconnected trees
+	 * that can be joined and inspect their connectivity
+	 * @param N the size of the forest
+	 */
+	public RollbackUnionFind(int N) {
+		parent = new int[N];
+		size = new int[N];
+		// Each union on the stack joins two trees, so there are under N
+		history = new int[Math.max(N - 1, 0)];
+		for (int i = 0; i < N; i++) {
+			parent[i] = i;
+			size[i] = 1;
+		}
+		count = N;
+	}
+
+	/**
+	 * Find the root of the tree of an element
+	 * @param i the index of the element to inspect
+	 * @return the root index of that element
+	 * @throws IllegalArgumentException if i is not a valid index
+	 */
+	public int find(int i) {
+		if (i >= length() || i < 0)
+			throw new IllegalArgumentException("The value " + i +
+					" is not in the range [0, " + length() + "]");
+		while (i != parent[i])
+			i = parent[i];
+		return i;
+	}
+
+	/**
+	 * Determine whether two elements are connected (belong to the same tree)
+	 * @param p the first element
+	 * @param q the second element
+	 * @return whether the two are connected
+	 * @throws IllegalArgumentException if either indices are not valid
+	 */
+	public boolean connected(int p, int q) {
+		return find(p) == find(q);
+	}
+
+	/**
+	 * Combine two trees (the larger tree becomes the parent)
+	 * @param p the index of one of the elements of the first tree
+	 * @param q the index of one of the elements of the second tree
+	 * @return whether the trees were joined, false if they were already
+	 * 		the same tree, in which case nothing is recorded
+	 * @throws IllegalArgumentException if either indices are not valid
+	 */
+	public boolean union(int p, int q) {
+		int i = find(p), j = find(q);
+		if (i == j) return false;
+		if (size[i] > size[j]) {
+			int swap = i; i = j; j = swap;
+		}
+		parent[i] = j;
+		size[j] += size[i];
+		history[top++] = i;
+		count--;
+		return true;
+	}
+
+	/**
+	 * Mark the current state so it can be rolled back to
+	 * @return the checkpoint, the number of unions recorded so far
+	 */
+	public int checkpoint() {
+		return top;
+	}
+
+	/**
+	 * Undo the last union that joined two trees
+	 * @throws IllegalStateException if there is no union to undo
+	 */
+	public void undo() {
+		if (top == 0)
+			throw new IllegalStateException("There is no union to undo");
+		int i = history[--top], j = parent[i];
+		size[j] -= size[i];
+		parent[i] = i;
+		count++;
+	}
+
+	/**
+	 * Undo every union made since a checkpoint
+	 * @param checkpoint the checkpoint to go back to
+	 * @throws IllegalArgumentException if the checkpoint is not in the range
+	 * 		[0, checkpoint()], such as one already rolled past
+	 */
+	public void rollback(int checkpoint) {
+		if (checkpoint < 0 || checkpoint > top)
+			throw new IllegalArgumentException("The value " + checkpoint +
+					" is not in the range [0, " + top + "]");
+		while (top > checkpoint)
+			undo();
+	}
+
+	/**
+	 * Get the number of elements in the tree of an element
+	 * @param i the index of the element to inspect
+	 * @return the size of its tree
+	 * @throws IllegalArgumentException if i is not a valid index
+	 */
+	public int size(int i) {
+		return size[find(i)];
+	}
+
+	/**
+	 * Get the number of trees in the forest
+	 * @return the number of trees
+	 */
+	public int count() {
+		return count;
+	}
+
+	/**
+	 * Determine the size of the forest
+	 * @return the number of elements
+	 */
+	public int length() {
+		return parent.length;
+	}
+}
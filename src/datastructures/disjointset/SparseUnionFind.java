@@ -0,0 +1,350 @@
+package datastructures.disjointset;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * Disjoint Set Data Structure over arbitrary 64 bit ids that grows as new
+ * ids arrive, so neither the number of elements nor their range is needed up
+ * front. Each id is given a dense index by an open addressing hash table of
+ * primitive longs, and the forest lives in arrays of fixed size chunks, so
+ * growing adds a chunk instead of copying everything. Trees are joined by
+ * size with path halving like WeightedQuickUnionFind, and the elements of
+ * each tree are also kept on a circular list, which two unions splice in
+ * constant time, so the members of a tree can be listed in time linear to
+ * its size
+ *
+ * @author An Nguyen
+ *
+ */
+public class SparseUnionFind {
+	private static final int SHIFT = 14;			// the log of the chunk size
+	private static final int CHUNK = 1 << SHIFT;	// the elements in a chunk
+	private static final int MASK = CHUNK - 1;		// the position of an index in its chunk
+
+	private long[] keys;		// the id in each slot of the hash table
+	private int[] slots;		// the index of the id in each slot plus one, 0 if empty
+	private int[][] parent;		// the parent of each element, itself for a root
+	private int[][] size;		// the size of the tree of each root
+	private int[][] next;		// the next element on the circular list of its tree
+	private long[][] id;		// the id of each element
+	private int N;				// the number of elements
+	private int count;			// the number of trees
+
+	/**
+	 * Create an empty forest
+	 */
+	public SparseUnionFind() {
+		keys = new long[16];
+		slots = new int[16];
+		parent = new int[1][];
+		size = new int[1][];
+		next = new int[1][];
+		id = new long[1][];
+	}
+
+	/**
+	 * Add an id as a tree of its own if it is new
+	 * @param x the id to add
+	 * @return whether x was new
+	 */
+	public boolean add(long x) {
+		int n = N;
+		return index(x, true) == n;
+	}
+
+	/**
+	 * Determine whether an id is in the forest
+	 * @param x the id to inspect
+	 * @return whether x was added
+	 */
+	public boolean contains(long x) {
+		return index(x, false) != -1;
+	}
+
+	/**
+	 * Find the id at the root of the tree of an id,
+	 * which stays the same until the tree is joined
+	 * @param x the id to inspect
+	 * @return the id of the root of its tree
+	 * @throws IllegalArgumentException if x is not in the forest
+	 */
+	public long find(long x) {
+		int r = root(indexOf(x));
+		return id[r >>> SHIFT][r & MASK];
+	}
+
+	/**
+	 * Determine whether two ids are connected (belong to the same tree)
+	 * @param x the first id
+	 * @param y the second id
+	 * @return whether the two are connected
+	 * @throws IllegalArgumentException if either id is not in the forest
+	 */
+	public boolean connected(long x, long y) {
+		return root(indexOf(x)) == root(indexOf(y));
+	}
+
+	/**
+	 * Combine the trees of two ids (the larger tree becomes the parent),
+	 * adding either id first if it is new
+	 * @param x an id of the first tree
+	 * @param y an id of the second tree
+	 * @return whether the trees were joined, false if they were
+	 * 		already the same tree
+	 */
+	public boolean union(long x, long y) {
+		int i = root(index(x, true)), j = root(index(y, true));
+		if (i == j) return false;
+		if (size[i >>> SHIFT][i & MASK] < size[j >>> SHIFT][j & MASK]) {
+			int swap = i; i = j; j = swap;
+		}
+		parent[j >>> SHIFT][j & MASK] = i;
+		size[i >>> SHIFT][i & MASK] += size[j >>> SHIFT][j & MASK];
+		// Splice the two circular lists into one
+		int after = next[i >>> SHIFT][i & MASK];
+		next[i >>> SHIFT][i & MASK] = next[j >>> SHIFT][j & MASK];
+		next[j >>> SHIFT][j & MASK] = after;
+		count--;
+		return true;
+	}
+
+	/**
+	 * Get the number of ids in the tree of an id
+	 * @param x the id to inspect
+	 * @return the size of its tree
+	 * @throws IllegalArgumentException if x is not in the forest
+	 */
+	public int size(long x) {
+		int r = root(indexOf(x));
+		return size[r >>> SHIFT][r & MASK];
+	}
+
+	/**
+	 * Get an iterable object that can iterate through
+	 * the ids of the tree of an id. The forest must not
+	 * change while iterating
+	 * @param x the id to inspect
+	 * @return the iterable object
+	 * @throws IllegalArgumentException if x is not in the forest
+	 */
+	public Iterable<Long> members(long x) {
+		final int start = indexOf(x);
+		return new Iterable<Long>() {
+			@Override
+			public Iterator<Long> iterator() {
+				return new Iterator<Long>() {
+					private int i = start;			// the next element
+					private boolean done = false;	// whether the list came back to the start
+
+					@Override
+					public boolean hasNext() {
+						return !done;
+					}
+
+					@Override
+					public Long next() {
+						if (done) throw new NoSuchElementException();
+						long x = id[i >>> SHIFT][i & MASK];
+						i = next[i >>> SHIFT][i & MASK];
+						done = i == start;
+						return x;
+					}
+
+					@Override
+					public void remove() {
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+		};
+	}
+
+	/**
+	 * Get the number of trees in the forest
+	 * @return the number of trees
+	 */
+	public int count() {
+		return count;
+	}
+
+	/**
+	 * Determine the size of the forest
+	 * @return the number of ids
+	 */
+	public int length() {
+		return N;
+	}
+
+	/**
+	 * Find the root of a tree by traveling up its parent tree,
+	 * pointing each element on the way to its grandparent
+	 * @param i the index of the element to inspect
+	 * @return the root index of that element
+	 */
+	private int root(int i) {
+		while (true) {
+			int[] chunk = parent[i >>> SHIFT];
+			int p = chunk[i & MASK];
+			if (p == i) return i;
+			int g = parent[p >>> SHIFT][p & MASK];
+			chunk[i & MASK] = g;
+			i = g;
+		}
+	}
+
+	/**
+	 * Look up the index of an id that must be in the forest
+	 * @param x the id to look up
+	 * @return the index of x
+	 * @throws IllegalArgumentException if x is not in the forest
+	 */
+	private int indexOf(long x) {
+		int i = index(x, false);
+		if (i == -1)
+			throw new IllegalArgumentException("The id " + x + " is not in the forest");
+		return i;
+	}
+
+	/**
+	 * Look up the index of an id, probing the slots after its hash
+	 * @param x the id to look up
+	 * @param add whether to add x as a tree of its own if it is new
+	 * @return the index of x, or -1 if it is new and not added
+	 */
+	private int index(long x, boolean add) {
+		int mask = slots.length - 1;
+		int s = hash(x) & mask;
+		while (slots[s] != 0) {
+			if (keys[s] == x) return slots[s] - 1;
+			s = (s + 1) & mask;
+		}
+		if (!add) return -1;
+		int i = N++;
+		keys[s] = x;
+		slots[s] = i + 1;
+		int c = i >>> SHIFT;
+		if (c == parent.length) {
+			// Only the table of chunks is copied
+			parent = Arrays.copyOf(parent, 2 * c);
+			size = Arrays.copyOf(size, 2 * c);
+			next = Arrays.copyOf(next, 2 * c);
+			id = Arrays.copyOf(id, 2 * c);
+		}
+		if (parent[c] == null) {
+			parent[c] = new int[CHUNK];
+			size[c] = new int[CHUNK];
+			next[c] = new int[CHUNK];
+			id[c] = new long[CHUNK];
+		}
+		parent[c][i & MASK] = i;
+		size[c][i & MASK] = 1;
+		next[c][i & MASK] = i;
+		id[c][i & MASK] = x;
+		count++;
+		// Keep the table at most half full
+		if (2 * N > slots.length)
+			resize(2 * slots.length);
+		return i;
+	}
+
+	/**
+	 * Move the ids to a hash table of another size
+	 * @param capacity the number of slots, a power of two
+	 */
+	private void resize(int capacity) {
+		long[] oldKeys = keys;
+		int[] oldSlots = slots;
+		keys = new long[capacity];
+		slots = new int[capacity];
+		int mask = capacity - 1;
+		for (int t = 0; t < oldSlots.length; t++) {
+			if (oldSlots[t] == 0) continue;
+			int s = hash(oldKeys[t]) & mask;
+			while (slots[s] != 0)
+				s = (s + 1) & mask;
+			keys[s] = oldKeys[t];
+			slots[s] = oldSlots[t];
+		}
+	}
+
+	/**
+	 * Scramble an id so nearby ids spread over the table
+	 * @param x the id
+	 * @return the hash of x
+	 */
+	private static int hash(long x) {
+		x ^= x >>> 33;
+		x *= 0xff51afd7ed558ccdL;
+		x ^= x >>> 33;
+		return (int) x;
+	}
+
+	/**
+	 * Measure the time and the memory per id of joining a stream of random
+	 * 64 bit ids, next to a HashMap that only gives each id an index
+	 * @param args the number of ids and the number of unions
+	 */
+	public static void main(String[] args) {
+		int M = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+		int unions = args.length > 1 ? Integer.parseInt(args[1]) : 2000000;
+		Random random = new Random(M);
+		long[] ids = new long[M];
+		for (int i = 0; i < M; i++)
+			ids[i] = random.nextLong();
+		// Both runs see the same stream of pairs
+		int[] pairs = new int[2 * unions];
+		for (int i = 0; i < 2 * unions; i++)
+			pairs[i] = random.nextInt(M);
+
+		long before = used();
+		long start = System.nanoTime();
+		SparseUnionFind forest = new SparseUnionFind();
+		for (int i = 0; i < unions; i++)
+			forest.union(ids[pairs[2 * i]], ids[pairs[2 * i + 1]]);
+		double time = (System.nanoTime() - start) / 1e6;
+		long bytes = used() - before;
+		long largest = 0;
+		int most = 0;
+		for (int i = 0; i < M; i += 1000)
+			if (forest.contains(ids[i]) && forest.size(ids[i]) > most) {
+				most = forest.size(ids[i]);
+				largest = ids[i];
+			}
+		int listed = 0;
+		for (long x : forest.members(largest))
+			if (forest.connected(x, largest)) listed++;
+		System.out.printf("%-16s %10.2f ms %8.1f bytes per id, %d ids in %d trees, %d of %d listed%n",
+				"SparseUnionFind", time, (double) bytes / forest.length(), forest.length(), forest.count(),
+				listed, most);
+
+		before = used();
+		start = System.nanoTime();
+		Map<Long, Integer> index = new HashMap<Long, Integer>();
+		for (int i = 0; i < unions; i++) {
+			long x = ids[pairs[2 * i]], y = ids[pairs[2 * i + 1]];
+			if (!index.containsKey(x)) index.put(x, index.size());
+			if (!index.containsKey(y)) index.put(y, index.size());
+		}
+		time = (System.nanoTime() - start) / 1e6;
+		bytes = used() - before;
+		System.out.printf("%-16s %10.2f ms %8.1f bytes per id, index only%n", "HashMap",
+				time, (double) bytes / index.size());
+		if (forest.length() != index.size()) System.out.println("the id counts differ");
+	}
+
+	/**
+	 * Measure the heap in use after a garbage collection
+	 * @return the bytes in use
+	 */
+	private static long used() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++)
+			System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -1,5 +1,11 @@
 package datastructures.disjointset;
 
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 /**
  * Disjoint Set Data Structure that allows for efficient
  * dynamic joining of trees
@@ -7,13 +13,61 @@ package datastructures.disjointset;
  * @author An Nguyen adapted from Robert Sedgewick
  * @version 1.0
  * 
- * TODO : implement a feature that allows you to cut trees
+ * Trees can't be cut. RollbackUnionFind undoes unions in reverse order,
+ * and OfflineDynamicConnectivity uses it to answer queries over a log of
+ * edge additions and removals
  *
  */
 public class WeightedQuickUnionFind {
+	private static final int GRAIN = 1 << 13; // the fewest pairs a parallel task splits into two
+
 	private int[] parent; // the array storing the parent of that element
 	private int[] size; // the array storing the size of that tree
 	
+	/**
+	 * Check a range of pairs against the parents without changing them,
+	 * so many of these can run at once as long as no union does
+	 * @author An Nguyen
+	 *
+	 */
+	private class Connected extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final int[] p, q;			// the pairs
+		private final boolean[] result;		// the answer for each pair
+		private final int lo, hi;			// the range of pairs of this task
+
+		/**
+		 * Create the check of a range of pairs
+		 * @param p the first element of each pair
+		 * @param q the second element of each pair
+		 * @param result the answer for each pair
+		 * @param lo the start of the range, inclusive
+		 * @param hi the end of the range, exclusive
+		 */
+		public Connected(int[] p, int[] q, boolean[] result, int lo, int hi) {
+			this.p = p;
+			this.q = q;
+			this.result = result;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo > GRAIN) {
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new Connected(p, q, result, lo, mid), new Connected(p, q, result, mid, hi));
+				return;
+			}
+			for (int k = lo; k < hi; k++) {
+				int i = p[k], j = q[k];
+				while (i != parent[i]) i = parent[i];
+				while (j != parent[j]) j = parent[j];
+				result[k] = i == j;
+			}
+		}
+	}
+	
 	
 	/**
 	 * Create a forest of disconnected trees 
@@ -75,17 +129,122 @@ public class WeightedQuickUnionFind {
 		}
 	}
 	
+	/**
+	 * Combine the trees of many pairs of elements, checking all of
+	 * them once up front instead of on every union
+	 * @param p the first element of each pair
+	 * @param q the second element of each pair
+	 * @return the number of pairs that joined two trees
+	 * @throws IllegalArgumentException if the arrays have different lengths
+	 * 		or an index is not valid, in which case no pair is joined
+	 */
+	public int unionAll(int[] p, int[] q) {
+		validate(p, q, length());
+		int joined = 0;
+		for (int k = 0; k < p.length; k++) {
+			int i = root(p[k]), j = root(q[k]);
+			if (i == j) continue;
+			if (size[i] < size[j]) {
+				parent[i] = j;
+				size[j] += size[i];
+			} else {
+				parent[j] = i;
+				size[i] += size[j];
+			}
+			joined++;
+		}
+		return joined;
+	}
+	
+	/**
+	 * Determine whether each of many pairs of elements are connected,
+	 * checking all of them once up front
+	 * @param p the first element of each pair
+	 * @param q the second element of each pair
+	 * @param result the array to store whether each pair is connected
+	 * @throws IllegalArgumentException if the arrays have different lengths
+	 * 		or an index is not valid
+	 */
+	public void connectedAll(int[] p, int[] q, boolean[] result) {
+		validate(p, q, length());
+		if (result.length < p.length)
+			throw new IllegalArgumentException("The result of length " + result.length +
+					" can't hold " + p.length + " answers");
+		for (int k = 0; k < p.length; k++)
+			result[k] = root(p[k]) == root(q[k]);
+	}
+	
+	/**
+	 * Determine whether each of many pairs of elements are connected,
+	 * checking all of them once up front
+	 * @param p the first element of each pair
+	 * @param q the second element of each pair
+	 * @return the set of the positions of the pairs that are connected
+	 * @throws IllegalArgumentException if the arrays have different lengths
+	 * 		or an index is not valid
+	 */
+	public BitSet connectedAll(int[] p, int[] q) {
+		validate(p, q, length());
+		// Fill whole words, then hand them to the set at once
+		long[] words = new long[(p.length + 63) >>> 6];
+		for (int k = 0; k < p.length; k++)
+			if (root(p[k]) == root(q[k]))
+				words[k >>> 6] |= 1L << k;
+		return BitSet.valueOf(words);
+	}
+	
+	/**
+	 * Determine whether each of many pairs of elements are connected,
+	 * split across the threads of a pool. The parents are only read,
+	 * without path compression, so no union may run at the same time
+	 * @param p the first element of each pair
+	 * @param q the second element of each pair
+	 * @param result the array to store whether each pair is connected
+	 * @param pool the pool that runs the checks
+	 * @throws IllegalArgumentException if the arrays have different lengths
+	 * 		or an index is not valid
+	 */
+	public void connectedAll(int[] p, int[] q, boolean[] result, ForkJoinPool pool) {
+		validate(p, q, length());
+		if (result.length < p.length)
+			throw new IllegalArgumentException("The result of length " + result.length +
+					" can't hold " + p.length + " answers");
+		pool.invoke(new Connected(p, q, result, 0, p.length));
+	}
+	
+	/**
+	 * Check that two arrays of pairs have the same length and hold
+	 * only valid indices, in one pass without a branch per index
+	 * @param p the first element of each pair
+	 * @param q the second element of each pair
+	 * @param N the size of the forest
+	 * @throws IllegalArgumentException if the arrays have different lengths
+	 * 		or an index is not valid
+	 */
+	static void validate(int[] p, int[] q, int N) {
+		if (p.length != q.length)
+			throw new IllegalArgumentException("The pair arrays have lengths " + p.length +
+					" and " + q.length);
+		// An index outside [0, N) makes i or N - 1 - i negative
+		int bits = 0;
+		for (int k = 0; k < p.length; k++)
+			bits |= p[k] | q[k] | (N - 1 - p[k]) | (N - 1 - q[k]);
+		if (bits >= 0) return;
+		for (int k = 0; k < p.length; k++)
+			if (p[k] >= N || q[k] >= N || q[k] < 0 || p[k] < 0)
+				throw new IllegalArgumentException("The value " + p[k] + " or " + q[k] + 
+						" is not in the range [0, " + N + "]");
+	}
+	
 	/**
 	 * Find the root of a tree by traveling up its parent tree.
 	 * This also implemented path compression to make root operations 
-	 * shorter each time you run
+	 * shorter each time you run. The index is not checked, so callers
+	 * validate it first
 	 * @param i the index of the element to inspect
 	 * @return the root index of that element
 	 */
 	private int root(int i) {
-		if (i >= length() || i < 0)
-			throw new IllegalArgumentException("The value " + i + 
-					" is not in the range [0, " + length() + "]");
 		// Run through the id until a root is found
 		while (i != parent[i]) {
 			// Flatten the tree by making an object link to it's grandparent
@@ -102,4 +261,76 @@ public class WeightedQuickUnionFind {
 	public int length() {
 		return parent.length;
 	}
+	
+	/**
+	 * Compare single unions and checks with the bulk ones, and the bulk
+	 * checks on a pool and on a ConcurrentUnionFind, on random pairs
+	 * @param args the size of the forest, the number of pairs and the
+	 * 		number of threads
+	 */
+	public static void main(String[] args) {
+		int N = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int M = args.length > 1 ? Integer.parseInt(args[1]) : 10000000;
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		Random random = new Random(N);
+		int[] p = new int[M], q = new int[M];
+		for (int k = 0; k < M; k++) {
+			p[k] = random.nextInt(N);
+			q[k] = random.nextInt(N);
+		}
+		// Join the first half, then check the second half
+		int half = M / 2;
+		int[] p1 = Arrays.copyOf(p, half), q1 = Arrays.copyOf(q, half);
+		int[] p2 = Arrays.copyOfRange(p, half, M), q2 = Arrays.copyOfRange(q, half, M);
+		boolean[] single = new boolean[M - half], bulk = new boolean[M - half];
+		ForkJoinPool pool = new ForkJoinPool(threads);
+
+		long start = System.nanoTime();
+		WeightedQuickUnionFind uf = new WeightedQuickUnionFind(N);
+		for (int k = 0; k < half; k++)
+			uf.union(p1[k], q1[k]);
+		double unions = (System.nanoTime() - start) / 1e6;
+		start = System.nanoTime();
+		for (int k = 0; k < single.length; k++)
+			single[k] = uf.connected(p2[k], q2[k]);
+		double checks = (System.nanoTime() - start) / 1e6;
+		System.out.printf("%-22s %10.2f ms union %10.2f ms connected%n", "single calls", unions, checks);
+
+		start = System.nanoTime();
+		uf = new WeightedQuickUnionFind(N);
+		uf.unionAll(p1, q1);
+		unions = (System.nanoTime() - start) / 1e6;
+		start = System.nanoTime();
+		uf.connectedAll(p2, q2, bulk);
+		checks = (System.nanoTime() - start) / 1e6;
+		System.out.printf("%-22s %10.2f ms union %10.2f ms connected%n", "bulk", unions, checks);
+		start = System.nanoTime();
+		BitSet set = uf.connectedAll(p2, q2);
+		System.out.printf("%-22s %10s    %10.2f ms connected%n", "bulk into a BitSet", "",
+				(System.nanoTime() - start) / 1e6);
+		int bad = 0;
+		for (int k = 0; k < single.length; k++)
+			if (single[k] != bulk[k] || single[k] != set.get(k)) bad++;
+
+		start = System.nanoTime();
+		uf.connectedAll(p2, q2, bulk, pool);
+		checks = (System.nanoTime() - start) / 1e6;
+		System.out.printf("%-22s %10s    %10.2f ms connected%n", "bulk on " + threads + " threads", "", checks);
+		for (int k = 0; k < single.length; k++)
+			if (single[k] != bulk[k]) bad++;
+
+		start = System.nanoTime();
+		ConcurrentUnionFind cuf = new ConcurrentUnionFind(N);
+		int joined = cuf.unionAll(p1, q1, pool);
+		unions = (System.nanoTime() - start) / 1e6;
+		start = System.nanoTime();
+		cuf.connectedAll(p2, q2, bulk, pool);
+		checks = (System.nanoTime() - start) / 1e6;
+		System.out.printf("%-22s %10.2f ms union %10.2f ms connected%n", "concurrent bulk", unions, checks);
+		for (int k = 0; k < single.length; k++)
+			if (single[k] != bulk[k]) bad++;
+		if (joined != N - cuf.count()) bad++;
+		System.out.printf("%-22s %d%n", "mismatches", bad);
+		pool.shutdown();
+	}
 }
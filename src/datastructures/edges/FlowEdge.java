@@ -37,8 +37,9 @@ public class FlowEdge {
 			flow -= value;
 		else if (v == this.w)
 			flow += value;
-		throw new IllegalArgumentException(v + " is not one of the edges in edge " + this.v + 
-				" -> " + this.w);
+		else
+			throw new IllegalArgumentException(v + " is not one of the edges in edge " + this.v + 
+					" -> " + this.w);
 	}
 	
 	/**
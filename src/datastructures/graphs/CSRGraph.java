@@ -0,0 +1,225 @@
+package datastructures.graphs;
+
+import java.util.Arrays;
+import java.util.List;
+
+import datastructures.edges.WeightedEdge;
+
+/**
+ * An immutable weighted directed graph stored in compressed sparse row
+ * form. The arcs leaving a vertex v are stored contiguously in the range
+ * [begin(v), end(v)) of two parallel primitive arrays, so an arc costs
+ * 12 bytes instead of a WeightedEdge object plus a list node, and
+ * scanning a neighborhood walks memory sequentially
+ *
+ * @author An Nguyen
+ *
+ */
+public class CSRGraph {
+	private final int N;			// the number of vertices
+	private final int[] offsets;	// arcs of v are stored in [offsets[v], offsets[v + 1])
+	private final int[] targets;	// the head of each arc
+	private final double[] weights;	// the weight of each arc
+
+	/**
+	 * Create a graph directly from its compressed arrays
+	 * @param N the number of vertices
+	 * @param offsets the N + 1 offsets into the arc arrays
+	 * @param targets the head of each arc
+	 * @param weights the weight of each arc
+	 */
+	private CSRGraph(int N, int[] offsets, int[] targets, double[] weights) {
+		this.N = N;
+		this.offsets = offsets;
+		this.targets = targets;
+		this.weights = weights;
+	}
+
+	/**
+	 * Convert an adjacency list representation into a CSR graph. Every
+	 * edge e in adj[v] becomes an arc from v to e.other(v), so an undirected
+	 * graph that stores its edges in both lists keeps both directions
+	 * @param N the size of the graph
+	 * @param adj the adjacency list representing the graph
+	 * @return the graph in compressed form
+	 */
+	public static CSRGraph of(int N, List<? extends WeightedEdge>[] adj) {
+		int M = 0;
+		for (int v = 0; v < N; v++)
+			M += adj[v].size();
+		Builder builder = new Builder(N, M);
+		for (int v = 0; v < N; v++)
+			for (WeightedEdge e : adj[v])
+				builder.addEdge(v, e.other(v), e.weight());
+		return builder.build();
+	}
+
+	/**
+	 * Compute the graph with every arc reversed
+	 * @return the reverse graph
+	 */
+	public CSRGraph reverse() {
+		Builder builder = new Builder(N, edges());
+		for (int v = 0; v < N; v++)
+			for (int e = offsets[v]; e < offsets[v + 1]; e++)
+				builder.addEdge(targets[e], v, weights[e]);
+		return builder.build();
+	}
+
+	/**
+	 * Get the number of vertices in the graph
+	 * @return the number of vertices
+	 */
+	public int size() {
+		return N;
+	}
+
+	/**
+	 * Get the number of arcs in the graph
+	 * @return the number of arcs
+	 */
+	public int edges() {
+		return targets.length;
+	}
+
+	/**
+	 * Get the index of the first arc leaving v
+	 * @param v the vertex to inspect
+	 * @return the index of the first arc of v
+	 */
+	public int begin(int v) {
+		return offsets[v];
+	}
+
+	/**
+	 * Get the index one past the last arc leaving v
+	 * @param v the vertex to inspect
+	 * @return the end of the arc range of v
+	 */
+	public int end(int v) {
+		return offsets[v + 1];
+	}
+
+	/**
+	 * Compute the number of arcs leaving v
+	 * @param v the vertex to inspect
+	 * @return the out degree of v
+	 */
+	public int degree(int v) {
+		return offsets[v + 1] - offsets[v];
+	}
+
+	/**
+	 * Get the head of an arc
+	 * @param e the index of the arc
+	 * @return the vertex the arc points to
+	 */
+	public int target(int e) {
+		return targets[e];
+	}
+
+	/**
+	 * Get the weight of an arc
+	 * @param e the index of the arc
+	 * @return the weight, or length, of the arc
+	 */
+	public double weight(int e) {
+		return weights[e];
+	}
+
+	/**
+	 * A builder that collects arcs in any order and lays them out
+	 * by their tail vertex with a counting sort
+	 *
+	 * @author An Nguyen
+	 *
+	 */
+	public static class Builder {
+		private final int N;		// the number of vertices
+		private int M;				// the number of arcs added so far
+		private int[] from, to;		// the tail and head of each arc
+		private double[] weight;	// the weight of each arc
+
+		/**
+		 * Create a builder for a graph of N vertices
+		 * @param N the size of the graph
+		 */
+		public Builder(int N) {
+			this(N, 16);
+		}
+
+		/**
+		 * Create a builder for a graph of N vertices with room
+		 * for a number of arcs before it needs to grow
+		 * @param N the size of the graph
+		 * @param capacity the expected number of arcs
+		 * @throws IllegalArgumentException if N or capacity is negative
+		 */
+		public Builder(int N, int capacity) {
+			if (N < 0 || capacity < 0)
+				throw new IllegalArgumentException("Invalid graph size " + N + " with capacity " + capacity);
+			this.N = N;
+			from = new int[Math.max(capacity, 1)];
+			to = new int[from.length];
+			weight = new double[from.length];
+		}
+
+		/**
+		 * Add a directed arc from v to w
+		 * @param v the starting vertex
+		 * @param w the target vertex
+		 * @param weight the weight, or length, of the arc
+		 * @return this builder
+		 * @throws IllegalArgumentException if v or w is not a valid vertex
+		 */
+		public Builder addEdge(int v, int w, double weight) {
+			if (v < 0 || v >= N || w < 0 || w >= N)
+				throw new IllegalArgumentException("The value " + v + " or " + w +
+						" is not in the range [0, " + N + "]");
+			if (M == from.length) {
+				from = Arrays.copyOf(from, 2 * M);
+				to = Arrays.copyOf(to, 2 * M);
+				this.weight = Arrays.copyOf(this.weight, 2 * M);
+			}
+			from[M] = v;
+			to[M] = w;
+			this.weight[M++] = weight;
+			return this;
+		}
+
+		/**
+		 * Add an undirected edge as a pair of opposite arcs
+		 * @param v one end of the edge
+		 * @param w the other end of the edge
+		 * @param weight the weight, or length, of the edge
+		 * @return this builder
+		 * @throws IllegalArgumentException if v or w is not a valid vertex
+		 */
+		public Builder addUndirectedEdge(int v, int w, double weight) {
+			addEdge(v, w, weight);
+			return addEdge(w, v, weight);
+		}
+
+		/**
+		 * Lay out the arcs collected so far into an immutable graph.
+		 * The builder can keep being used afterwards
+		 * @return the graph in compressed form
+		 */
+		public CSRGraph build() {
+			int[] offsets = new int[N + 1];
+			for (int i = 0; i < M; i++)
+				offsets[from[i] + 1]++;
+			for (int v = 0; v < N; v++)
+				offsets[v + 1] += offsets[v];
+			int[] next = Arrays.copyOf(offsets, N);
+			int[] targets = new int[M];
+			double[] weights = new double[M];
+			for (int i = 0; i < M; i++) {
+				int e = next[from[i]]++;
+				targets[e] = to[i];
+				weights[e] = weight[i];
+			}
+			return new CSRGraph(N, offsets, targets, weights);
+		}
+	}
+}
@@ -0,0 +1,286 @@
+package datastructures.graphs;
+
+import java.util.Arrays;
+import java.util.List;
+
+import datastructures.edges.FlowEdge;
+
+/**
+ * A residual flow network stored in primitive arrays. Every edge is a
+ * pair of arcs, the forward arc 2k and its reverse 2k + 1, so the reverse of
+ * an arc a is always a ^ 1. The arcs leaving a vertex are chained through
+ * head and next, which lets edges be added at any time, and each arc keeps
+ * its residual capacity so pushing flow is two array writes. An edge may
+ * also carry a cost per unit of flow, which its reverse arc refunds
+ *
+ * @author An Nguyen
+ *
+ */
+public class FlowGraph implements ResidualGraph {
+	private final int N;			// the number of vertices
+	private int M;					// the number of arcs, twice the number of edges
+	private int[] head;				// the last arc added out of v, -1 if none
+	private int[] next;				// the arc added out of the same vertex before a, -1 if none
+	private int[] to;				// the head of each arc
+	private double[] capacity;		// the capacity of each arc, 0 for a reverse arc
+	private double[] residual;		// the residual capacity of each arc
+	private double[] cost;			// the cost of a unit of flow on each arc, negated on a reverse arc
+
+	/**
+	 * Create an empty flow network of N vertices
+	 * @param N the size of the graph
+	 */
+	public FlowGraph(int N) {
+		this(N, 16);
+	}
+
+	/**
+	 * Create an empty flow network of N vertices with room
+	 * for a number of edges before it needs to grow
+	 * @param N the size of the graph
+	 * @param edges the expected number of edges
+	 * @throws IllegalArgumentException if N or edges is negative
+	 */
+	public FlowGraph(int N, int edges) {
+		if (N < 0 || edges < 0)
+			throw new IllegalArgumentException("Invalid graph size " + N + " with capacity " + edges);
+		this.N = N;
+		head = new int[N];
+		Arrays.fill(head, -1);
+		int arcs = 2 * Math.max(edges, 1);
+		next = new int[arcs];
+		to = new int[arcs];
+		capacity = new double[arcs];
+		residual = new double[arcs];
+		cost = new double[arcs];
+	}
+
+	/**
+	 * Convert an adjacency list of flow edges into a flow network. An edge
+	 * is taken from the list of its tail, so it may be stored in the lists
+	 * of both its ends as usual. The flow already on the edges is kept
+	 * @param N the size of the graph
+	 * @param adj the adjacency list of flow edges that represents the flow graph
+	 * @return the flow network
+	 */
+	public static FlowGraph of(int N, List<FlowEdge>[] adj) {
+		FlowGraph G = new FlowGraph(N);
+		for (int v = 0; v < N; v++)
+			for (FlowEdge e : adj[v]) {
+				if (e.from() != v) continue;
+				int w = e.to();
+				double cap = e.residualCapacityTo(w) + e.residualCapacityTo(v);
+				int a = 2 * G.addEdge(v, w, cap);
+				G.residual[a] = e.residualCapacityTo(w);
+				G.residual[a ^ 1] = e.residualCapacityTo(v);
+			}
+		return G;
+	}
+
+	/**
+	 * Add an edge from v to w along with its reverse arc
+	 * @param v the tail of the edge
+	 * @param w the head of the edge
+	 * @param cap the capacity of the edge
+	 * @return the id of the edge, whose forward arc is 2 * id
+	 * @throws IllegalArgumentException if v or w is not a valid vertex
+	 * 		or cap is negative
+	 */
+	public int addEdge(int v, int w, double cap) {
+		return addEdge(v, w, cap, 0);
+	}
+
+	/**
+	 * Add an edge from v to w with a cost per unit of flow
+	 * along with its reverse arc
+	 * @param v the tail of the edge
+	 * @param w the head of the edge
+	 * @param cap the capacity of the edge
+	 * @param cost the cost of sending a unit of flow along the edge
+	 * @return the id of the edge, whose forward arc is 2 * id
+	 * @throws IllegalArgumentException if v or w is not a valid vertex,
+	 * 		cap is negative or cost is not a number
+	 */
+	public int addEdge(int v, int w, double cap, double cost) {
+		if (v < 0 || v >= N || w < 0 || w >= N)
+			throw new IllegalArgumentException("The value " + v + " or " + w +
+					" is not in the range [0, " + N + "]");
+		if (!(cap >= 0))
+			throw new IllegalArgumentException("The capacity " + cap + " is negative");
+		if (Double.isNaN(cost))
+			throw new IllegalArgumentException("The cost of an edge is not a number");
+		if (M + 2 > to.length) {
+			next = Arrays.copyOf(next, 2 * M);
+			to = Arrays.copyOf(to, 2 * M);
+			capacity = Arrays.copyOf(capacity, 2 * M);
+			residual = Arrays.copyOf(residual, 2 * M);
+			this.cost = Arrays.copyOf(this.cost, 2 * M);
+		}
+		link(M, v, w, cap, cap);
+		link(M + 1, w, v, 0, 0);
+		this.cost[M] = cost;
+		this.cost[M + 1] = -cost;
+		M += 2;
+		return M / 2 - 1;
+	}
+
+	/**
+	 * Chain an arc into the list of its tail
+	 * @param a the index of the arc
+	 * @param v the tail of the arc
+	 * @param w the head of the arc
+	 * @param cap the capacity of the arc
+	 * @param res the residual capacity of the arc
+	 */
+	private void link(int a, int v, int w, double cap, double res) {
+		to[a] = w;
+		capacity[a] = cap;
+		residual[a] = res;
+		next[a] = head[v];
+		head[v] = a;
+	}
+
+	/**
+	 * Get the number of vertices in the graph
+	 * @return the number of vertices
+	 */
+	@Override
+	public int size() {
+		return N;
+	}
+
+	/**
+	 * Get the number of arcs in the graph, counting both
+	 * directions of every edge
+	 * @return the number of arcs
+	 */
+	public int arcs() {
+		return M;
+	}
+
+	/**
+	 * Get the first arc leaving v
+	 * @param v the vertex to inspect
+	 * @return the index of the first arc of v, -1 if v has none
+	 */
+	@Override
+	public int head(int v) {
+		return head[v];
+	}
+
+	/**
+	 * Get the arc leaving the same vertex after a
+	 * @param a the index of an arc
+	 * @return the index of the next arc, -1 if a is the last
+	 */
+	@Override
+	public int next(int a) {
+		return next[a];
+	}
+
+	/**
+	 * Get the head of an arc
+	 * @param a the index of the arc
+	 * @return the vertex the arc points to
+	 */
+	@Override
+	public int to(int a) {
+		return to[a];
+	}
+
+	/**
+	 * Get the tail of an arc, which is the head of its reverse
+	 * @param a the index of the arc
+	 * @return the vertex the arc leaves
+	 */
+	@Override
+	public int from(int a) {
+		return to[a ^ 1];
+	}
+
+	/**
+	 * Get the residual capacity of an arc
+	 * @param a the index of the arc
+	 * @return how much more flow the arc can take
+	 */
+	public double residual(int a) {
+		return residual[a];
+	}
+
+	/**
+	 * Determine whether an arc can take no more flow
+	 * @param a the index of the arc
+	 * @return whether the residual capacity of a is 0 or below
+	 */
+	@Override
+	public boolean saturated(int a) {
+		return residual[a] <= 0;
+	}
+
+	/**
+	 * Get the cost of a unit of flow on an arc. Pushing flow along a
+	 * reverse arc cancels flow on its edge, so its cost is negated
+	 * @param a the index of the arc
+	 * @return the cost of the arc
+	 */
+	public double cost(int a) {
+		return cost[a];
+	}
+
+	/**
+	 * Push flow along an arc, which frees the same
+	 * amount of capacity on its reverse
+	 * @param a the index of the arc
+	 * @param flow the amount of flow to push
+	 */
+	public void push(int a, double flow) {
+		residual[a] -= flow;
+		residual[a ^ 1] += flow;
+	}
+
+	/**
+	 * Get the capacity of an edge
+	 * @param id the id of the edge
+	 * @return the capacity of the edge
+	 */
+	public double capacity(int id) {
+		return capacity[2 * id];
+	}
+
+	/**
+	 * Get the flow on an edge
+	 * @param id the id of the edge
+	 * @return the flow from the tail to the head of the edge
+	 */
+	public double flow(int id) {
+		return capacity[2 * id] - residual[2 * id];
+	}
+
+	/**
+	 * Change the capacity of an edge while keeping its flow
+	 * @param id the id of the edge
+	 * @param cap the new capacity of the edge
+	 * @throws IllegalArgumentException if cap is smaller than the flow on the edge
+	 */
+	public void setCapacity(int id, double cap) {
+		if (!(cap >= flow(id)))
+			throw new IllegalArgumentException("The capacity " + cap + " is smaller than the flow " + flow(id));
+		residual[2 * id] += cap - capacity[2 * id];
+		capacity[2 * id] = cap;
+	}
+
+	/**
+	 * Get the number of edges in the graph
+	 * @return the number of edges
+	 */
+	public int edges() {
+		return M / 2;
+	}
+
+	/**
+	 * Remove all flow from the network
+	 */
+	public void reset() {
+		System.arraycopy(capacity, 0, residual, 0, M);
+	}
+}
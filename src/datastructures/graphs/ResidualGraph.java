@@ -0,0 +1,54 @@
+package datastructures.graphs;
+
+/**
+ * The shape of a residual flow network that a search can walk without
+ * knowing the type of its capacities: the arcs out of each vertex, the ends
+ * of every arc and whether an arc can take any more flow. FlowGraph and
+ * LongFlowGraph both implement it, so the leveling and path finding of
+ * Dinic's Algorithm are written once for both
+ *
+ * @author An Nguyen
+ *
+ */
+public interface ResidualGraph {
+	/**
+	 * Get the number of vertices in the graph
+	 * @return the size of the graph
+	 */
+	public int size();
+
+	/**
+	 * Get the first arc leaving v
+	 * @param v the vertex to inspect
+	 * @return the index of the first arc of v, -1 if v has none
+	 */
+	public int head(int v);
+
+	/**
+	 * Get the arc leaving the same vertex after a
+	 * @param a the index of an arc
+	 * @return the index of the next arc, -1 if a is the last
+	 */
+	public int next(int a);
+
+	/**
+	 * Get the head of an arc
+	 * @param a the index of the arc
+	 * @return the vertex the arc points to
+	 */
+	public int to(int a);
+
+	/**
+	 * Get the tail of an arc
+	 * @param a the index of the arc
+	 * @return the vertex the arc leaves
+	 */
+	public int from(int a);
+
+	/**
+	 * Determine whether an arc can take no more flow
+	 * @param a the index of the arc
+	 * @return whether the residual capacity of a is used up
+	 */
+	public boolean saturated(int a);
+}
@@ -0,0 +1,343 @@
+package datastructures.trees;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A Minimum Priority Queue over primitive long keys with different
+ * index sets whereby a key belongs to an index, laid out as a d-ary
+ * heap like IndexMinDoublePQ. Integer keys such as path lengths or
+ * costs compare exactly, with no rounding
+ *
+ * @author An Nguyen
+ *
+ */
+public class IndexMinLongPQ {
+	private static final int DEFAULT_ARITY = 8;	// the arity picked by the benchmark of IndexMinDoublePQ
+
+	private final int shift;	// the log of the arity of the heap
+	private int[] pq; 			// reference that refers to the position of an object
+								// index used is the index of that object
+	private int[] qp;			// reference that refers to the object
+								// index used is the position of that object, -1 if absent
+	private long[] keys; 		// stores the key of each index
+	private int n; 				// the current size of the pq
+
+	/**
+	 * Create the min priority queue over the indices [0, N)
+	 * @param N the size of the queue
+	 */
+	public IndexMinLongPQ(int N) {
+		this(N, DEFAULT_ARITY);
+	}
+
+	/**
+	 * Create the min priority queue over the indices [0, N)
+	 * with a given arity
+	 * @param N the size of the queue
+	 * @param arity the number of children of each node, 2, 4 or 8
+	 * @throws IllegalArgumentException if the arity is not 2, 4 or 8
+	 */
+	public IndexMinLongPQ(int N, int arity) {
+		if (arity != 2 && arity != 4 && arity != 8)
+			throw new IllegalArgumentException("The arity " + arity + " is not 2, 4 or 8");
+		shift = Integer.numberOfTrailingZeros(arity);
+		pq = new int[N];
+		qp = new int[N];
+		keys = new long[N];
+		n = 0;
+		for (int i = 0; i < N; i++)
+			qp[i] = -1;
+	}
+
+	/**
+	 * Create the min priority queue holding every index of an array
+	 * with its key, heapified in linear time
+	 * @param keys the key of each index
+	 */
+	public IndexMinLongPQ(long[] keys) {
+		this(keys, DEFAULT_ARITY);
+	}
+
+	/**
+	 * Create the min priority queue holding every index of an array
+	 * with its key and a given arity, heapified in linear time
+	 * @param keys the key of each index
+	 * @param arity the number of children of each node, 2, 4 or 8
+	 * @throws IllegalArgumentException if the arity is not 2, 4 or 8
+	 */
+	public IndexMinLongPQ(long[] keys, int arity) {
+		this(keys.length, arity);
+		System.arraycopy(keys, 0, this.keys, 0, keys.length);
+		n = keys.length;
+		for (int i = 0; i < n; i++) {
+			pq[i] = i;
+			qp[i] = i;
+		}
+		heapify();
+	}
+
+	/**
+	 * Determines if the Priority Queue contains an
+	 * index i
+	 * @param i the index to test
+	 * @return whether the queue contains the index i
+	 * @throws IllegalArgumentException if i is not a valid index
+	 */
+	public boolean contains(int i) {
+		if (i < 0 || i >= qp.length)
+			throw new IllegalArgumentException(i + " is not in the range [0, " + qp.length + "]");
+		return qp[i] != -1;
+	}
+
+	/**
+	 * Insert an item into the minimum pq
+	 * @param i the index
+	 * @param key the key that will be in that index
+	 * @return whether the insertion fails or succeed. The insertion
+	 * 		fails if there is already a key inside of index i
+	 * @throws IllegalArgumentException if i is not a valid index
+	 */
+	public boolean insert(int i, long key) {
+		if (contains(i))
+			return false;
+		keys[i] = key;
+		pq[n] = i;
+		qp[i] = n;
+		swim(n++);
+		return true;
+	}
+
+	/**
+	 * Insert many items at once, adding them to the end of the heap
+	 * and heapifying it in linear time when they outnumber what is
+	 * already inside, or inserting them one by one otherwise
+	 * @param indices the indices to insert, none of them already inside
+	 * 		of the queue or repeated
+	 * @param keys the key of each index, in the same order
+	 * @throws IllegalArgumentException if the arrays have different lengths,
+	 * 		an index is not valid, already inside of the queue or repeated,
+	 * 		in which case nothing is inserted
+	 */
+	public void insertAll(int[] indices, long[] keys) {
+		if (indices.length != keys.length)
+			throw new IllegalArgumentException("The arrays have lengths " + indices.length +
+					" and " + keys.length);
+		int m = 0;
+		try {
+			for (; m < indices.length; m++) {
+				int i = indices[m];
+				if (contains(i))
+					throw new IllegalArgumentException("The element at index " + i + " already exists");
+				// Claim the index so a repeat is caught too
+				qp[i] = n + m;
+			}
+		} catch (IllegalArgumentException e) {
+			while (m > 0)
+				qp[indices[--m]] = -1;
+			throw e;
+		}
+		for (int k = 0; k < indices.length; k++) {
+			this.keys[indices[k]] = keys[k];
+			pq[n + k] = indices[k];
+		}
+		if (indices.length < n) {
+			for (int k = 0; k < indices.length; k++)
+				swim(n++);
+		} else {
+			n += indices.length;
+			heapify();
+		}
+	}
+
+	/**
+	 * Decrease the key of the index i
+	 * @param i the index whose key it is to decrease
+	 * @param key the new key, which must not be larger than the current one
+	 * @throws IllegalArgumentException if i is not a valid index or key is
+	 * 		larger than the key already inside of the index
+	 * @throws NoSuchElementException if there is no key inside of index i
+	 */
+	public void decreaseKey(int i, long key) {
+		if (!contains(i))
+			throw new NoSuchElementException("The element at index " + i + " does not exist");
+		if (key > keys[i])
+			throw new IllegalArgumentException(key + " is larger than the current key " + keys[i]);
+		keys[i] = key;
+		swim(qp[i]);
+	}
+
+	/**
+	 * Change the key of the index i, up or down
+	 * @param i the index whose key it is to change
+	 * @param key the new key
+	 * @throws IllegalArgumentException if i is not a valid index
+	 * @throws NoSuchElementException if there is no key inside of index i
+	 */
+	public void changeKey(int i, long key) {
+		if (!contains(i))
+			throw new NoSuchElementException("The element at index " + i + " does not exist");
+		long old = keys[i];
+		keys[i] = key;
+		if (key < old) swim(qp[i]);
+		else sink(qp[i]);
+	}
+
+	/**
+	 * Remove an index and its key from the queue
+	 * @param i the index to remove
+	 * @throws IllegalArgumentException if i is not a valid index
+	 * @throws NoSuchElementException if there is no key inside of index i
+	 */
+	public void delete(int i) {
+		if (!contains(i))
+			throw new NoSuchElementException("The element at index " + i + " does not exist");
+		int k = qp[i];
+		qp[i] = -1;
+		if (k == --n) return;
+		// Fill the hole with the last key, which may need to go either way
+		pq[k] = pq[n];
+		qp[pq[k]] = k;
+		if (keys[pq[k]] < keys[i]) swim(k);
+		else sink(k);
+	}
+
+	/**
+	 * Get the key associated with an index
+	 * @param i the index to inspect
+	 * @return the key inside of index i
+	 * @throws NoSuchElementException if there is no key inside of index i
+	 */
+	public long keyOf(int i) {
+		if (!contains(i))
+			throw new NoSuchElementException("The element at index " + i + " does not exist");
+		return keys[i];
+	}
+
+	/**
+	 * Determine whether the priority queue is empty
+	 * @return whether the queue is empty
+	 */
+	public boolean isEmpty() {
+		return n == 0;
+	}
+
+	/**
+	 * Determine the number of indices in the queue
+	 * @return the size of the queue
+	 */
+	public int size() {
+		return n;
+	}
+
+	/**
+	 * Get the index associated with the head of the priority queue
+	 * @return the index of the minimum key
+	 * @throws NoSuchElementException if the queue is empty
+	 */
+	public int minIndex() {
+		if (isEmpty())
+			throw new NoSuchElementException("Cannot inspect an empty queue");
+		return pq[0];
+	}
+
+	/**
+	 * Get the smallest key in the queue
+	 * @return the key at the head of the queue
+	 * @throws NoSuchElementException if the queue is empty
+	 */
+	public long minKey() {
+		if (isEmpty())
+			throw new NoSuchElementException("Cannot inspect an empty queue");
+		return keys[pq[0]];
+	}
+
+	/**
+	 * Remove the head of the priority queue
+	 * @return the index whose key was the smallest
+	 * @throws NoSuchElementException if the queue is empty
+	 */
+	public int dequeue() {
+		if (isEmpty())
+			throw new NoSuchElementException("Cannot dequeue from an empty queue");
+		int min = pq[0];
+		qp[min] = -1;
+		if (--n > 0) {
+			pq[0] = pq[n];
+			sink(0);
+		}
+		return min;
+	}
+
+	/**
+	 * Remove every index from the queue in time proportional
+	 * to the number of indices still inside of it
+	 */
+	public void clear() {
+		for (int k = 0; k < n; k++)
+			qp[pq[k]] = -1;
+		n = 0;
+	}
+
+	/**
+	 * Sink every parent from the last one up to the root,
+	 * which puts the whole queue in heap order in linear time
+	 */
+	private void heapify() {
+		if (n < 2) return;
+		for (int k = (n - 2) >>> shift; k >= 0; k--)
+			sink(k);
+	}
+
+	/**
+	 * Swim a key up the priority tree, switching it with
+	 * its parent if necessary
+	 * @param k the initial position of the key
+	 */
+	private void swim(int k) {
+		int i = pq[k];
+		long key = keys[i];
+		while (k > 0) {
+			int p = (k - 1) >>> shift;
+			if (keys[pq[p]] <= key)
+				break;
+			pq[k] = pq[p];
+			qp[pq[k]] = k;
+			k = p;
+		}
+		pq[k] = i;
+		qp[i] = k;
+	}
+
+	/**
+	 * Sink a key down the priority tree, switching it with
+	 * its children if necessary. This operation prioritize the
+	 * smallest of the children
+	 * @param k the initial position of the key
+	 */
+	private void sink(int k) {
+		int i = pq[k];
+		long key = keys[i];
+		while (true) {
+			int first = (k << shift) + 1;
+			if (first >= n)
+				break;
+			int last = Math.min(first + (1 << shift), n);
+			int j = first;
+			long min = keys[pq[first]];
+			for (int c = first + 1; c < last; c++) {
+				long x = keys[pq[c]];
+				if (x < min) {
+					min = x;
+					j = c;
+				}
+			}
+			if (key <= min)
+				break;
+			pq[k] = pq[j];
+			qp[pq[k]] = k;
+			k = j;
+		}
+		pq[k] = i;
+		qp[i] = k;
+	}
+}
@@ -92,6 +92,30 @@ public class IndexMinPQ<Key extends Comparable<Key>> {
 		return n == 0;
 	}
 	
+	/**
+	 * Get the index associated with the head of the priority queue
+	 * @return the index of the minimum key
+	 * @throws NoSuchElementException if the queue is empty
+	 */
+	public int minIndex() {
+		if (isEmpty())
+			throw new NoSuchElementException("Cannot inspect an empty queue");
+		return pq[1];
+	}
+	
+	/**
+	 * Get the key associated with an index
+	 * @param i the index to inspect
+	 * @return the key inside of index i
+	 * @throws IllegalArgumentException if i is not a valid index
+	 * @throws NoSuchElementException if there is no key inside of index i
+	 */
+	public Key keyOf(int i) {
+		if (!contains(i))
+			throw new NoSuchElementException("The element at index " + i + " does not exist");
+		return keys[i];
+	}
+	
 	/**
 	 * Return the head of the priority queue
 	 * @return the head of the priority queue, as a Key object
@@ -0,0 +1,289 @@
+package datastructures.trees;
+
+import java.util.Arrays;
+
+/**
+ * A forest of rooted trees that can be linked and cut in amortized log N,
+ * where every node holds a value and the node of largest value on the path
+ * between any two nodes can be found in the same time. Each tree is split into
+ * preferred paths, and each path is kept in a splay tree ordered by depth and
+ * stored in primitive arrays. Rerooting a tree reverses one path, which is
+ * done lazily with a flip bit
+ *
+ * @author An Nguyen
+ *
+ */
+public class LinkCutTree {
+	private int N;				// the number of nodes
+	private int[] left;			// the left child of x in its splay tree, -1 if none
+	private int[] right;		// the right child of x in its splay tree, -1 if none
+	private int[] parent;		// the splay parent of x, or the path parent if x is
+								// the root of its splay tree, -1 if none
+	private boolean[] flip;		// whether the children below x are still to be swapped
+	private double[] value;		// the value of x
+	private int[] top;			// the node of largest value in the splay subtree of x
+	private int[] stack;		// the nodes whose flips are pushed before a splay
+
+	/**
+	 * Create an empty forest with room for a number
+	 * of nodes before it needs to grow
+	 * @param capacity the expected number of nodes
+	 */
+	public LinkCutTree(int capacity) {
+		capacity = Math.max(capacity, 1);
+		left = new int[capacity];
+		right = new int[capacity];
+		parent = new int[capacity];
+		flip = new boolean[capacity];
+		value = new double[capacity];
+		top = new int[capacity];
+		stack = new int[capacity];
+	}
+
+	/**
+	 * Add a node that is a tree of its own
+	 * @param x the value of the node
+	 * @return the index of the node
+	 */
+	public int add(double x) {
+		if (N == left.length) {
+			int capacity = 2 * N;
+			left = Arrays.copyOf(left, capacity);
+			right = Arrays.copyOf(right, capacity);
+			parent = Arrays.copyOf(parent, capacity);
+			flip = Arrays.copyOf(flip, capacity);
+			value = Arrays.copyOf(value, capacity);
+			top = Arrays.copyOf(top, capacity);
+			stack = Arrays.copyOf(stack, capacity);
+		}
+		left[N] = right[N] = parent[N] = -1;
+		value[N] = x;
+		top[N] = N;
+		return N++;
+	}
+
+	/**
+	 * Get the number of nodes in the forest
+	 * @return the number of nodes
+	 */
+	public int size() {
+		return N;
+	}
+
+	/**
+	 * Get the value of a node
+	 * @param x the node to inspect
+	 * @return the value of x
+	 */
+	public double value(int x) {
+		validate(x);
+		return value[x];
+	}
+
+	/**
+	 * Change the value of a node
+	 * @param x the node to change
+	 * @param v the new value of x
+	 */
+	public void setValue(int x, double v) {
+		validate(x);
+		access(x);
+		value[x] = v;
+		pull(x);
+	}
+
+	/**
+	 * Determine whether two nodes are in the same tree
+	 * @param x the first node
+	 * @param y the second node
+	 * @return whether x and y are connected
+	 */
+	public boolean connected(int x, int y) {
+		validate(x);
+		validate(y);
+		return x == y || findRoot(x) == findRoot(y);
+	}
+
+	/**
+	 * Join the trees of two nodes with an edge between them
+	 * @param x the first node
+	 * @param y the second node
+	 * @throws IllegalArgumentException if x and y are already connected
+	 */
+	public void link(int x, int y) {
+		if (connected(x, y))
+			throw new IllegalArgumentException("The nodes " + x + " and " + y + " are already connected");
+		makeRoot(x);
+		parent[x] = y;
+	}
+
+	/**
+	 * Remove the edge between two nodes
+	 * @param x the first node
+	 * @param y the second node
+	 * @throws IllegalArgumentException if there is no edge between x and y
+	 */
+	public void cut(int x, int y) {
+		validate(x);
+		validate(y);
+		makeRoot(x);
+		access(y);
+		// x is now the only node above y on the path
+		if (left[y] != x || left[x] != -1 || right[x] != -1)
+			throw new IllegalArgumentException("There is no edge between " + x + " and " + y);
+		left[y] = -1;
+		parent[x] = -1;
+		pull(y);
+	}
+
+	/**
+	 * Find the node of largest value on the path between two nodes,
+	 * both included
+	 * @param x the first node
+	 * @param y the second node
+	 * @return the node of largest value on the path
+	 * @throws IllegalArgumentException if x and y are not connected
+	 */
+	public int pathMax(int x, int y) {
+		if (!connected(x, y))
+			throw new IllegalArgumentException("The nodes " + x + " and " + y + " are not connected");
+		makeRoot(x);
+		access(y);
+		return top[y];
+	}
+
+	/**
+	 * Make the path from the root of its tree to a node preferred,
+	 * leaving the node at the root of its splay tree with nothing
+	 * deeper in it
+	 * @param x the node to access
+	 */
+	private void access(int x) {
+		for (int y = x, last = -1; y != -1; last = y, y = parent[y]) {
+			splay(y);
+			right[y] = last;
+			pull(y);
+		}
+		splay(x);
+	}
+
+	/**
+	 * Make a node the root of its tree by reversing
+	 * the path from the old root to it
+	 * @param x the new root
+	 */
+	private void makeRoot(int x) {
+		access(x);
+		flip[x] ^= true;
+	}
+
+	/**
+	 * Find the root of the tree of a node
+	 * @param x the node to inspect
+	 * @return the root of its tree
+	 */
+	private int findRoot(int x) {
+		access(x);
+		while (true) {
+			push(x);
+			if (left[x] == -1) break;
+			x = left[x];
+		}
+		splay(x);
+		return x;
+	}
+
+	/**
+	 * Move a node to the root of its splay tree
+	 * @param x the node to splay
+	 */
+	private void splay(int x) {
+		// Push the pending flips down from the root of the splay tree
+		int n = 0;
+		stack[n++] = x;
+		for (int y = x; !isRoot(y); y = parent[y])
+			stack[n++] = parent[y];
+		while (n > 0)
+			push(stack[--n]);
+
+		while (!isRoot(x)) {
+			int p = parent[x];
+			if (!isRoot(p)) {
+				int g = parent[p];
+				rotate((left[g] == p) == (left[p] == x) ? p : x);
+			}
+			rotate(x);
+		}
+	}
+
+	/**
+	 * Rotate a node above its splay parent
+	 * @param x the node to rotate
+	 */
+	private void rotate(int x) {
+		int p = parent[x], g = parent[p];
+		if (!isRoot(p)) {
+			if (left[g] == p) left[g] = x;
+			else right[g] = x;
+		}
+		parent[x] = g;
+		if (left[p] == x) {
+			left[p] = right[x];
+			if (right[x] != -1) parent[right[x]] = p;
+			right[x] = p;
+		} else {
+			right[p] = left[x];
+			if (left[x] != -1) parent[left[x]] = p;
+			left[x] = p;
+		}
+		parent[p] = x;
+		pull(p);
+		pull(x);
+	}
+
+	/**
+	 * Determine whether a node is the root of its splay tree
+	 * @param x the node to inspect
+	 * @return whether x has no splay parent
+	 */
+	private boolean isRoot(int x) {
+		int p = parent[x];
+		return p == -1 || (left[p] != x && right[p] != x);
+	}
+
+	/**
+	 * Swap the children of a node if a flip is pending,
+	 * passing the flip on to them
+	 * @param x the node to push
+	 */
+	private void push(int x) {
+		if (!flip[x]) return;
+		int l = left[x];
+		left[x] = right[x];
+		right[x] = l;
+		if (left[x] != -1) flip[left[x]] ^= true;
+		if (right[x] != -1) flip[right[x]] ^= true;
+		flip[x] = false;
+	}
+
+	/**
+	 * Recompute the node of largest value below a node
+	 * @param x the node to update
+	 */
+	private void pull(int x) {
+		int t = x;
+		if (left[x] != -1 && value[top[left[x]]] > value[t]) t = top[left[x]];
+		if (right[x] != -1 && value[top[right[x]]] > value[t]) t = top[right[x]];
+		top[x] = t;
+	}
+
+	/**
+	 * Check that a node exists
+	 * @param x the node to check
+	 * @throws IllegalArgumentException if x is not a valid node
+	 */
+	private void validate(int x) {
+		if (x < 0 || x >= N)
+			throw new IllegalArgumentException("The value " + x + " is not in the range [0, " + N + "]");
+	}
+}
@@ -0,0 +1,144 @@
+package datastructures.trees;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A radix heap over long keys that never decrease, as in Dijkstra's
+ * algorithm with integer weights. A key is kept in the bucket of the
+ * highest bit in which it differs from the last key removed, so refilling
+ * the lowest bucket only ever moves keys into lower buckets and every key
+ * moves at most 64 times, without a single comparison between two keys
+ *
+ * @author An Nguyen
+ *
+ */
+public class RadixHeap {
+	private static final int BUCKETS = 65;	// one bucket per bit, plus one for equal keys
+
+	private long[][] keys;		// the keys in each bucket
+	private int[][] values;		// the value stored with each key
+	private int[] sizes;		// the number of keys in each bucket
+	private long last;			// the last key removed, which bounds every key
+	private int n;				// the number of keys in the heap
+
+	/**
+	 * Create an empty radix heap
+	 */
+	public RadixHeap() {
+		keys = new long[BUCKETS][4];
+		values = new int[BUCKETS][4];
+		sizes = new int[BUCKETS];
+		last = 0;
+		n = 0;
+	}
+
+	/**
+	 * Insert a value with a key
+	 * @param key the key, which must not be smaller than the last key removed
+	 * @param value the value stored with the key
+	 * @throws IllegalArgumentException if key is smaller than the last key removed
+	 */
+	public void insert(long key, int value) {
+		if (key < last)
+			throw new IllegalArgumentException(key + " is smaller than the last key removed " + last);
+		add(bucket(key), key, value);
+		n++;
+	}
+
+	/**
+	 * Determine whether the heap is empty
+	 * @return whether the heap is empty
+	 */
+	public boolean isEmpty() {
+		return n == 0;
+	}
+
+	/**
+	 * Determine the number of keys in the heap
+	 * @return the size of the heap
+	 */
+	public int size() {
+		return n;
+	}
+
+	/**
+	 * Get the smallest key in the heap
+	 * @return the smallest key
+	 * @throws NoSuchElementException if the heap is empty
+	 */
+	public long minKey() {
+		if (isEmpty())
+			throw new NoSuchElementException("Cannot inspect an empty heap");
+		pull();
+		return last;
+	}
+
+	/**
+	 * Remove a value with the smallest key
+	 * @return the value stored with the smallest key
+	 * @throws NoSuchElementException if the heap is empty
+	 */
+	public int dequeue() {
+		if (isEmpty())
+			throw new NoSuchElementException("Cannot dequeue from an empty heap");
+		pull();
+		n--;
+		return values[0][--sizes[0]];
+	}
+
+	/**
+	 * Remove every key from the heap and allow keys from 0 again
+	 */
+	public void clear() {
+		for (int b = 0; b < BUCKETS; b++)
+			sizes[b] = 0;
+		last = 0;
+		n = 0;
+	}
+
+	/**
+	 * Make sure the bucket of keys equal to the last key is not empty
+	 * by moving the smallest key of the first non-empty bucket into last
+	 * and spreading that bucket over the lower ones
+	 */
+	private void pull() {
+		if (sizes[0] > 0) return;
+		int b = 1;
+		while (sizes[b] == 0)
+			b++;
+		long min = keys[b][0];
+		for (int i = 1; i < sizes[b]; i++)
+			min = Math.min(min, keys[b][i]);
+		last = min;
+		int size = sizes[b];
+		sizes[b] = 0;
+		for (int i = 0; i < size; i++)
+			add(bucket(keys[b][i]), keys[b][i], values[b][i]);
+	}
+
+	/**
+	 * Compute the bucket of a key by the highest bit in which
+	 * it differs from the last key removed
+	 * @param key the key to place
+	 * @return the bucket of the key
+	 */
+	private int bucket(long key) {
+		return key == last ? 0 : 64 - Long.numberOfLeadingZeros(key ^ last);
+	}
+
+	/**
+	 * Append a key to a bucket
+	 * @param b the bucket
+	 * @param key the key to append
+	 * @param value the value stored with the key
+	 */
+	private void add(int b, long key, int value) {
+		if (sizes[b] == keys[b].length) {
+			keys[b] = Arrays.copyOf(keys[b], 2 * sizes[b]);
+			values[b] = Arrays.copyOf(values[b], 2 * sizes[b]);
+		}
+		keys[b][sizes[b]] = key;
+		values[b][sizes[b]++] = value;
+	}
+}